@@ -23,14 +23,20 @@ import argo.jdom.JsonNodeFactories;
 import argo.jdom.JsonRootNode;
 import core.ipc.IPCServiceManager;
 import core.keyChain.KeyChain;
+import core.keyChain.RollingKeySeries;
+import core.keyChain.mouseGestureRecognition.GestureTrainingSamples;
+import core.keyChain.mouseGestureRecognition.PointCloudRecognizer;
 import core.userDefinedTask.TaskGroup;
 import core.userDefinedTask.TaskGroupManager;
+import core.userDefinedTask.internals.ActionExecutor;
 import utilities.FileUtility;
 import utilities.ILoggable;
 import utilities.json.JSONUtility;
 
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -79,6 +85,21 @@ public final class Config implements ILoggable {
 
             IPCServiceManager.parseJSON(data.getArrayNode("ipc_settings"));
             TaskGroupManager.parseJSON(data.getArrayNode("task_groups"));
+            if (data.isArrayNode("custom_gestures")) {
+                config.customGestures.parseJSON(data.getArrayNode("custom_gestures"));
+            }
+            if (globalSettings.isNumberValue("key_sequence_window")) {
+                config.setKeySequenceWindow(Integer.parseInt(globalSettings.getNumberValue("key_sequence_window")));
+            }
+            if (globalSettings.isObjectNode("execution_limits")) {
+                JsonNode executionLimits = globalSettings.getNode("execution_limits");
+                if (executionLimits.isObjectNode("interactive")) {
+                    config.setInteractiveExecutionLimits(ActionExecutor.Limits.parseJSON(executionLimits.getNode("interactive")));
+                }
+                if (executionLimits.isObjectNode("bulk")) {
+                    config.setBulkExecutionLimits(ActionExecutor.Limits.parseJSON(executionLimits.getNode("bulk")));
+                }
+            }
         });
     }
 
@@ -98,6 +119,15 @@ public final class Config implements ILoggable {
     // instead of relying on native values returned by the hook.
     // Note that this is applicable for Windows.
     private boolean useJavaAwtToGetMousePosition;
+    // Templates of the mouse gestures recorded by the user.
+    private final PointCloudRecognizer customGestures;
+    // Samples to train the gesture model with, read from their own file when first needed.
+    private GestureTrainingSamples mouseGestureTrainingSamples;
+    // Number of most recent key strokes kept to match key sequences against, applied at startup.
+    private int keySequenceWindow;
+    // Capacity of the execution lanes, applied when the action executor is created at startup.
+    private ActionExecutor.Limits interactiveExecutionLimits;
+    private ActionExecutor.Limits bulkExecutionLimits;
 
     private Config() {
         logLevel = Level.INFO;
@@ -106,6 +136,10 @@ public final class Config implements ILoggable {
         RECORD = new KeyChain(KeyEvent.VK_F7);
         REPLAY = new KeyChain(KeyEvent.VK_F8);
         COMPILED_REPLAY = new KeyChain(KeyEvent.VK_F9);
+        customGestures = new PointCloudRecognizer();
+        keySequenceWindow = RollingKeySeries.DEFAULT_LIMIT;
+        interactiveExecutionLimits = ActionExecutor.DEFAULT_INTERACTIVE_LIMITS;
+        bulkExecutionLimits = ActionExecutor.DEFAULT_BULK_LIMITS;
         initParsers();
     }
 
@@ -159,14 +193,32 @@ public final class Config implements ILoggable {
                                 JsonNodeFactories.field("execute_on_key_released", JsonNodeFactories.booleanNode(executeOnKeyReleased)),
                                 JsonNodeFactories.field("use_clipboard_to_type_string", JsonNodeFactories.booleanNode(useClipboardToTypeString)),
                                 JsonNodeFactories.field("use_java_awt_for_mouse_position", JsonNodeFactories.booleanNode(useJavaAwtToGetMousePosition)),
+                                JsonNodeFactories.field("key_sequence_window", JsonNodeFactories.number(keySequenceWindow)),
+                                JsonNodeFactories.field("execution_limits", JsonNodeFactories.object(
+                                        JsonNodeFactories.field("interactive", interactiveExecutionLimits.jsonize()),
+                                        JsonNodeFactories.field("bulk", bulkExecutionLimits.jsonize()))),
                                 JsonNodeFactories.field("global_hotkey", JsonNodeFactories.object(
                                         JsonNodeFactories.field("mouse_gesture_activation", MOUSE_GESTURE.jsonize()),
                                         JsonNodeFactories.field("record", RECORD.jsonize()),
                                         JsonNodeFactories.field("replay", REPLAY.jsonize()),
                                         JsonNodeFactories.field("replay_compiled", COMPILED_REPLAY.jsonize()))))),
                 JsonNodeFactories.field("ipc_settings", IPCServiceManager.jsonize()),
-                JsonNodeFactories.field("task_groups", JsonNodeFactories.array(taskNodes)));
-        return JSONUtility.writeJson(r, new File(CONFIG_FILE_NAME));
+                JsonNodeFactories.field("task_groups", JsonNodeFactories.array(taskNodes)),
+                JsonNodeFactories.field("custom_gestures", customGestures.jsonize()));
+        return JSONUtility.writeJson(r, new File(CONFIG_FILE_NAME)) && saveMouseGestureTrainingSamples();
+    }
+
+    private synchronized boolean saveMouseGestureTrainingSamples() {
+        if (mouseGestureTrainingSamples == null || !mouseGestureTrainingSamples.isModified()) {
+            return true;
+        }
+        try {
+            mouseGestureTrainingSamples.write(Path.of(MOUSE_GESTURE_SAMPLES_FILE_NAME));
+            return true;
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING, "Unable to save mouse gesture training samples.", e);
+            return false;
+        }
     }
 
     public KeyChain getRECORD() {
@@ -187,6 +239,54 @@ public final class Config implements ILoggable {
         this.MOUSE_GESTURE = MOUSE_GESTURE;
     }
 
+    public PointCloudRecognizer getCustomGestures() {
+        return customGestures;
+    }
+
+    public synchronized GestureTrainingSamples getMouseGestureTrainingSamples() {
+        if (mouseGestureTrainingSamples == null) {
+            try {
+                mouseGestureTrainingSamples = GestureTrainingSamples.read(Path.of(MOUSE_GESTURE_SAMPLES_FILE_NAME));
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING, "Unable to read mouse gesture training samples, starting over.", e);
+                mouseGestureTrainingSamples = new GestureTrainingSamples();
+            }
+        }
+        return mouseGestureTrainingSamples;
+    }
+
+    public int getKeySequenceWindow() {
+        return keySequenceWindow;
+    }
+
+    public void setKeySequenceWindow(int keySequenceWindow) {
+        if (keySequenceWindow < 1) {
+            getLogger().warning("Ignoring key sequence window of " + keySequenceWindow + " strokes, it must be positive.");
+            return;
+        }
+        this.keySequenceWindow = keySequenceWindow;
+    }
+
+    public ActionExecutor.Limits getInteractiveExecutionLimits() {
+        return interactiveExecutionLimits;
+    }
+
+    public void setInteractiveExecutionLimits(ActionExecutor.Limits interactiveExecutionLimits) {
+        if (interactiveExecutionLimits != null) {
+            this.interactiveExecutionLimits = interactiveExecutionLimits;
+        }
+    }
+
+    public ActionExecutor.Limits getBulkExecutionLimits() {
+        return bulkExecutionLimits;
+    }
+
+    public void setBulkExecutionLimits(ActionExecutor.Limits bulkExecutionLimits) {
+        if (bulkExecutionLimits != null) {
+            this.bulkExecutionLimits = bulkExecutionLimits;
+        }
+    }
+
     public KeyChain getREPLAY() {
         return REPLAY;
     }
@@ -30,6 +30,8 @@ public final class Constants {
     public static final String CURRENT_CONFIG_VERSION = "3.0";
     public static final String CONFIG_FILE_NAME = "config.json";
     public static final String EXPORTED_CONFIG_FILE_NAME = "exported_" + CONFIG_FILE_NAME;
+    public static final String MOUSE_GESTURE_MODEL_FILE_NAME = "mouse_gesture_model.bin";
+    public static final String MOUSE_GESTURE_SAMPLES_FILE_NAME = "mouse_gesture_samples.bin";
 
     private Constants() {
         //This class is uninstantiable
@@ -0,0 +1,130 @@
+package core.controller;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signal asking a running task to stop.
+ * <p>
+ * A token is bound to the thread running the task, and the blocking calls of {@link Core} sleep on the bound token
+ * instead of {@link Thread#sleep(long)}. Cancelling the token wakes them up immediately with an
+ * {@link InterruptedException}, so a task stops at its next wait even if it swallows thread interrupts in its own code.
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+    // Sleeping can overshoot by tens of microseconds or more, so the end of a wait until a deadline is spent yielding.
+    private static final long SPIN_NANOS = 500_000;
+
+    private final CountDownLatch cancelled;
+
+    public CancellationToken() {
+        cancelled = new CountDownLatch(1);
+    }
+
+    /**
+     * @return the token bound to the current thread, or null if there is none.
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sleep on the token bound to the current thread, or the same as {@link Thread#sleep(long)} if there is none.
+     *
+     * @param millis sleep duration in milliseconds.
+     * @throws InterruptedException if the thread is interrupted or the token is cancelled.
+     */
+    public static void sleepCurrent(long millis) throws InterruptedException {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            Thread.sleep(millis);
+        } else {
+            token.sleep(millis);
+        }
+    }
+
+    /**
+     * Wait for a thread to end, but no later than the deadline.
+     *
+     * @param deadlineNanos deadline as given by {@link System#nanoTime()}.
+     * @return whether the thread has ended.
+     */
+    public static boolean join(Thread thread, long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        try {
+            if (remaining > 0) {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(remaining), (int) (remaining % 1_000_000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    /**
+     * Bind this token to the current thread until {@link #unbind()} is called.
+     */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public void cancel() {
+        cancelled.countDown();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * @throws InterruptedException if the token is cancelled.
+     */
+    public void throwIfCancelled() throws InterruptedException {
+        if (isCancelled()) {
+            throw new InterruptedException("Cancelled.");
+        }
+    }
+
+    /**
+     * Sleep until the duration elapses or the token is cancelled.
+     *
+     * @param millis sleep duration in milliseconds.
+     * @throws InterruptedException if the thread is interrupted or the token is cancelled, before or while sleeping.
+     */
+    public void sleep(long millis) throws InterruptedException {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Sleep duration is negative.");
+        }
+        throwIfCancelled();
+        if (cancelled.await(millis, TimeUnit.MILLISECONDS)) {
+            throw new InterruptedException("Cancelled.");
+        }
+    }
+
+    /**
+     * Wait until the deadline or until the token is cancelled. The wait sleeps until shortly before the deadline, then
+     * yields in a loop so that it ends within a few microseconds of the deadline.
+     *
+     * @param deadlineNanos deadline as given by {@link System#nanoTime()}. Returns at once if it has passed.
+     * @throws InterruptedException if the thread is interrupted or the token is cancelled, before or while waiting.
+     */
+    public void sleepUntil(long deadlineNanos) throws InterruptedException {
+        throwIfCancelled();
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > SPIN_NANOS && cancelled.await(remaining - SPIN_NANOS, TimeUnit.NANOSECONDS)) {
+            throw new InterruptedException("Cancelled.");
+        }
+        while (deadlineNanos - System.nanoTime() > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            throwIfCancelled();
+            Thread.yield();
+        }
+    }
+}
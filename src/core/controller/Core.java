@@ -54,10 +54,10 @@ public final class Core {
      * Blocking wait the current action for an amount of time
      *
      * @param duration wait duration in milliseconds
-     * @throws InterruptedException
+     * @throws InterruptedException if the action is interrupted or its {@link CancellationToken} is cancelled.
      */
     private void blockingWait(int duration) throws InterruptedException {
-        Thread.sleep(duration);
+        CancellationToken.sleepCurrent(duration);
     }
 
     /**
@@ -1,6 +1,7 @@
 package core.controller.internals;
 
 import core.config.Config;
+import core.controller.CancellationToken;
 import core.userDefinedTask.Clipboard;
 import utilities.Function;
 import utilities.OSIdentifier;
@@ -171,11 +172,13 @@ public final class LocalKeyboardCore extends AbstractKeyboardCoreImplementation
     public void hold(int key, int duration) throws InterruptedException {
         press(key);
 
-        if (duration >= 0) {
-            Thread.sleep(duration);
+        try {
+            if (duration >= 0) {
+                CancellationToken.sleepCurrent(duration);
+            }
+        } finally {
+            release(key);
         }
-
-        release(key);
     }
 
     private void pressSingleKey(int key) {
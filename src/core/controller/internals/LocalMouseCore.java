@@ -1,5 +1,7 @@
 package core.controller.internals;
 
+import core.controller.CancellationToken;
+
 import java.awt.*;
 import java.awt.event.InputEvent;
 
@@ -34,8 +36,11 @@ public final class LocalMouseCore extends AbstractMouseCoreImplementation {
         controller.mousePress(mask);
 
         if (duration >= 0) {
-            Thread.sleep(duration);
-            controller.mouseRelease(mask);
+            try {
+                CancellationToken.sleepCurrent(duration);
+            } finally {
+                controller.mouseRelease(mask);
+            }
         }
     }
 
@@ -6,6 +6,7 @@ import core.ipc.repeatServer.MainMessageSender;
 import core.keyChain.ActionInvoker;
 import core.languageHandler.Language;
 import core.languageHandler.compiler.Compiler;
+import core.userDefinedTask.ExecutionContext;
 import core.userDefinedTask.UserDefinedAction;
 import frontEnd.Backend;
 import utilities.FileUtility;
@@ -162,9 +163,8 @@ final class ServerTaskRequestProcessor extends AbstractMessageProcessor {
 //            return;
 //        }
 
-        action.setInvoker(actionInvoker);
         try {
-            action.trackedAction(Backend.getCore());
+            action.trackedAction(ExecutionContext.Builder.of().setController(Backend.getCore()).setActivation(actionInvoker).build());
         } catch (InterruptedException e) {
             LOGGER.log(Level.WARNING, "Interrupted while executing action.", e);
         }
@@ -2,33 +2,78 @@ package core.keyChain;
 
 import core.userDefinedTask.internals.SharedVariablesEvent;
 
+/**
+ * An event that may activate tasks, together with {@link System#nanoTime()} when it was received.
+ * <p>
+ * Events are normally immutable. An envelope from {@link #reusable()} is instead owned by a single thread and refilled
+ * with {@link #reset(ButtonStroke, long)} for every event, so that dispatching strokes does not allocate.
+ * Consumers must therefore not keep a reference to an event beyond handling it.
+ */
 public final class ActivationEvent {
-    private final EventType type;
+    private EventType type;
+    private long nanos;
     private ButtonStroke buttonStroke;
     private SharedVariablesEvent variable;
 
-    private ActivationEvent(ButtonStroke buttonStroke) {
+    private ActivationEvent(ButtonStroke buttonStroke, long nanos) {
         this.type = EventType.BUTTON_STROKE;
+        this.nanos = nanos;
         this.buttonStroke = buttonStroke;
     }
 
-    private ActivationEvent(SharedVariablesEvent variable) {
+    private ActivationEvent(SharedVariablesEvent variable, long nanos) {
         this.type = EventType.SHARED_VARIABLE;
+        this.nanos = nanos;
         this.variable = variable;
     }
 
     public static ActivationEvent of(ButtonStroke buttonStroke) {
-        return new ActivationEvent(buttonStroke);
+        return of(buttonStroke, System.nanoTime());
+    }
+
+    /**
+     * @param nanos {@link System#nanoTime()} when the stroke was received.
+     */
+    public static ActivationEvent of(ButtonStroke buttonStroke, long nanos) {
+        return new ActivationEvent(buttonStroke, nanos);
     }
 
     public static ActivationEvent of(SharedVariablesEvent variable) {
-        return new ActivationEvent(variable);
+        return new ActivationEvent(variable, System.nanoTime());
+    }
+
+    /**
+     * @return an empty envelope to be filled with {@link #reset(ButtonStroke, long)} before each use.
+     */
+    public static ActivationEvent reusable() {
+        return new ActivationEvent((ButtonStroke) null, 0);
+    }
+
+    /**
+     * Refill this envelope with a button stroke.
+     *
+     * @param nanos {@link System#nanoTime()} when the stroke was received.
+     * @return this envelope.
+     */
+    public ActivationEvent reset(ButtonStroke buttonStroke, long nanos) {
+        this.type = EventType.BUTTON_STROKE;
+        this.nanos = nanos;
+        this.buttonStroke = buttonStroke;
+        this.variable = null;
+        return this;
     }
 
     public EventType getType() {
         return type;
     }
 
+    /**
+     * @return {@link System#nanoTime()} when the event was received.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
     public ButtonStroke getButtonStroke() {
         if (type != EventType.BUTTON_STROKE) {
             throw new RuntimeException("This Action refers not to a ButtonStroke, but to a " + type);
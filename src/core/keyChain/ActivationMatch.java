@@ -0,0 +1,42 @@
+package core.keyChain;
+
+import core.userDefinedTask.UserDefinedAction;
+
+/**
+ * An action matched by an activation event, together with the part of its activation that matched.
+ * <p>
+ * Matches are immutable and created per event, so the same action can be matched by several events and executed
+ * concurrently without the executions seeing each other's activation.
+ */
+public final class ActivationMatch {
+    private final UserDefinedAction action;
+    private final ActionInvoker invoker;
+    private final long eventNanos;
+
+    private ActivationMatch(UserDefinedAction action, ActionInvoker invoker, long eventNanos) {
+        this.action = action;
+        this.invoker = invoker;
+        this.eventNanos = eventNanos;
+    }
+
+    /**
+     * @param action     matched action.
+     * @param invoker    activation containing only the element that matched.
+     * @param eventNanos {@link System#nanoTime()} of the event that completed the match.
+     */
+    public static ActivationMatch of(UserDefinedAction action, ActionInvoker invoker, long eventNanos) {
+        return new ActivationMatch(action, invoker, eventNanos);
+    }
+
+    public UserDefinedAction getAction() {
+        return action;
+    }
+
+    public ActionInvoker getInvoker() {
+        return invoker;
+    }
+
+    public long getEventNanos() {
+        return eventNanos;
+    }
+}
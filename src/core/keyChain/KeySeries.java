@@ -153,7 +153,7 @@ public abstract class KeySeries implements IJsonable {
         StringBuilder builder = new StringBuilder();
         KeyboardState keyboardState = KeyboardState.getDefault();
 
-        for (ButtonStroke keyStroke : getButtonStrokes()) {
+        for (ButtonStroke keyStroke : keys) {
             String s = KeyCodeToChar.getCharForCode(keyStroke.getKey(), keyboardState);
             builder.append(s);
         }
@@ -7,11 +7,14 @@ import org.simplenativehooks.events.NativeKeyEvent;
 import utilities.KeyCodeToChar;
 import utilities.KeyEventCodeToString;
 
-import java.time.LocalDateTime;
 import java.util.logging.Logger;
 
 /**
  * Represents a key stroke on the keyboard.
+ * <p>
+ * Key strokes are immutable. Strokes for common keys are canonical instances shared through a flyweight table, so
+ * turning a native event into a key stroke does not allocate. The time of the stroke is not part of the stroke, and is
+ * carried by the {@link ActivationEvent} instead.
  */
 @SuppressWarnings("unused")
 public final class KeyStroke implements ButtonStroke {
@@ -19,24 +22,44 @@ public final class KeyStroke implements ButtonStroke {
     private static final Logger LOGGER = Logger.getLogger(KeyStroke.class.getName());
 
     private static final String TYPE_STRING = "key_stroke";
+
+    /**
+     * Keys below this value have canonical instances. This covers every virtual key code on a regular keyboard.
+     */
+    private static final int CACHED_KEYS = 1024;
+    private static final Modifier[] MODIFIERS = Modifier.values();
+    // Filled lazily. Racing threads may both create an instance, which is harmless since strokes are immutable.
+    private static final KeyStroke[] CANONICAL = new KeyStroke[CACHED_KEYS * MODIFIERS.length * 2];
+
     private final int key;
     private final Modifier modifier;
-    private boolean pressed; // Press or release.
-    private LocalDateTime invokedTime;
+    private final boolean pressed; // Press or release.
 
-    private KeyStroke(int key, Modifier modifier, boolean press, LocalDateTime invokedTime) {
+    private KeyStroke(int key, Modifier modifier, boolean press) {
         this.key = key;
         this.modifier = modifier;
         this.pressed = press;
-        this.invokedTime = invokedTime;
     }
 
     public static KeyStroke of(int key, Modifier modifier) {
-        return new KeyStroke(key, modifier, false, LocalDateTime.now());
+        return of(key, modifier, false);
     }
 
-    private static KeyStroke of(int key, Modifier modifier, boolean press, LocalDateTime invokedTime) {
-        return new KeyStroke(key, modifier, press, invokedTime);
+    /**
+     * @return the canonical key stroke for the key, modifier and press state.
+     */
+    public static KeyStroke of(int key, Modifier modifier, boolean press) {
+        if (key < 0 || key >= CACHED_KEYS) {
+            return new KeyStroke(key, modifier, press);
+        }
+
+        int index = ((key * MODIFIERS.length) + modifier.ordinal()) * 2 + (press ? 1 : 0);
+        KeyStroke stroke = CANONICAL[index];
+        if (stroke == null) {
+            stroke = new KeyStroke(key, modifier, press);
+            CANONICAL[index] = stroke;
+        }
+        return stroke;
     }
 
     public static KeyStroke of(NativeKeyEvent e) {
@@ -46,7 +69,7 @@ public final class KeyStroke implements ButtonStroke {
             default -> Modifier.KEY_MODIFIER_UNKNOWN;
         };
 
-        return of(e.getKey(), m, e.isPressed(), e.getInvokedTime());
+        return of(e.getKey(), m, e.isPressed());
     }
 
     public static KeyStroke parseJSON(JsonNode n) {
@@ -97,14 +120,11 @@ public final class KeyStroke implements ButtonStroke {
         return modifier;
     }
 
-    public KeyStroke at(LocalDateTime invokedTime) {
-        this.invokedTime = invokedTime;
-        return this;
-    }
-
+    /**
+     * @return the stroke for the same key and modifier, pressed or released.
+     */
     public KeyStroke press(boolean pressed) {
-        this.pressed = pressed;
-        return this;
+        return of(key, modifier, pressed);
     }
 
     @Override
@@ -114,7 +134,7 @@ public final class KeyStroke implements ButtonStroke {
 
     @Override
     public KeyStroke clone() {
-        return of(key, modifier, pressed, invokedTime);
+        return this;
     }
 
     @Override
@@ -181,8 +201,8 @@ public final class KeyStroke implements ButtonStroke {
             this.value = value;
         }
 
-        private static Modifier forValue(int value) {
-            for (Modifier m : Modifier.values()) {
+        static Modifier forValue(int value) {
+            for (Modifier m : MODIFIERS) {
                 if (m.value == value) {
                     return m;
                 }
@@ -192,7 +212,7 @@ public final class KeyStroke implements ButtonStroke {
             return KEY_MODIFIER_UNKNOWN;
         }
 
-        private int getValue() {
+        int getValue() {
             return this.value;
         }
 
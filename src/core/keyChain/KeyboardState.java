@@ -5,26 +5,44 @@ import java.awt.event.KeyEvent;
 /**
  * The state of lock keys on the keyboard (numslock, capslock, scrolllock).
  * Instances of this class is immutable.
+ * <p>
+ * The state is packed into a bit mask, and there is one canonical instance per mask,
+ * so changing the state never allocates.
  */
 public final class KeyboardState {
-	private boolean numslockLocked;
-	private boolean capslockLocked;
-	private boolean scrollLockLocked;
-	private boolean shiftLocked;
+
+	/**
+	 * Number of distinct states, i.e. one past the largest value of {@link #getBits()}.
+	 */
+	public static final int COUNT = 1 << 4;
+
+	private static final int NUMSLOCK = 1;
+	private static final int CAPSLOCK = 1 << 1;
+	private static final int SCROLL_LOCK = 1 << 2;
+	private static final int SHIFT = 1 << 3;
+
+	private static final KeyboardState[] STATES = new KeyboardState[COUNT];
+	static {
+		for (int i = 0; i < COUNT; i++) {
+			STATES[i] = new KeyboardState(i);
+		}
+	}
+
+	private final int bits;
 
 	public static KeyboardState getDefault() {
-		return new KeyboardState(false, false, false, false);
+		return STATES[0];
 	}
 
-	private static KeyboardState of(boolean numlockLocked, boolean capslockLocked, boolean scrollLockLocked, boolean isShiftLocked) {
-		return new KeyboardState(numlockLocked, capslockLocked, scrollLockLocked, isShiftLocked);
+	/**
+	 * @param bits bit mask as returned by {@link #getBits()}.
+	 */
+	public static KeyboardState of(int bits) {
+		return STATES[bits & (COUNT - 1)];
 	}
 
-	private KeyboardState(boolean numlockLocked, boolean capslockLocked, boolean scrollLockLocked, boolean isShiftLocked) {
-		this.numslockLocked = numlockLocked;
-		this.capslockLocked = capslockLocked;
-		this.scrollLockLocked = scrollLockLocked;
-		this.shiftLocked = isShiftLocked;
+	private KeyboardState(int bits) {
+		this.bits = bits;
 	}
 
 	public KeyboardState changeWith(KeyStroke stroke) {
@@ -32,90 +50,69 @@ public final class KeyboardState {
 		boolean pressed = stroke.isPressed();
 
 		if (key == KeyEvent.VK_SHIFT) {
-			return withShiftLocked(pressed);
+			return with(SHIFT, pressed);
 		} else if (key == KeyEvent.VK_NUM_LOCK) {
-			return withNumslock(pressed);
+			return with(NUMSLOCK, pressed);
 		} else if (key == KeyEvent.VK_CAPS_LOCK) {
-			return withCapslock(pressed);
+			return with(CAPSLOCK, pressed);
 		} else if (key == KeyEvent.VK_SCROLL_LOCK) {
-			return withScrollLock(pressed);
+			return with(SCROLL_LOCK, pressed);
 		}
 
 		return this;
 	}
 
-	private KeyboardState withNumslock(boolean state) {
-		return clone().setNumslockLocked(state);
-	}
-
 	public KeyboardState withCapslockOn() {
-		return clone().setCapslockLocked(true);
+		return with(CAPSLOCK, true);
 	}
 
 	public KeyboardState withCapslockOff() {
-		return clone().setCapslockLocked(false);
-	}
-
-	private KeyboardState withCapslock(boolean state) {
-		return clone().setCapslockLocked(state);
+		return with(CAPSLOCK, false);
 	}
 
 	public KeyboardState withScrollLockOn() {
-		return clone().setScrollLockLocked(true);
+		return with(SCROLL_LOCK, true);
 	}
 
 	public KeyboardState withScrollLockOff() {
-		return clone().setScrollLockLocked(false);
-	}
-
-	private KeyboardState withScrollLock(boolean state) {
-		return clone().setScrollLockLocked(state);
+		return with(SCROLL_LOCK, false);
 	}
 
 	public KeyboardState withShiftLocked() {
-		return clone().setShiftLocked(true);
+		return with(SHIFT, true);
 	}
 
 	public KeyboardState withShiftUnlocked() {
-		return clone().setShiftLocked(false);
+		return with(SHIFT, false);
 	}
 
-	private KeyboardState withShiftLocked(boolean state) {
-		return clone().setShiftLocked(state);
+	private KeyboardState with(int flag, boolean state) {
+		return of(state ? bits | flag : bits & ~flag);
 	}
 
 	@Override
 	public KeyboardState clone() {
-		return of(numslockLocked, capslockLocked, scrollLockLocked, shiftLocked);
+		return this;
+	}
+
+	/**
+	 * @return the state packed into a bit mask between 0 (inclusive) and {@link #COUNT} (exclusive).
+	 */
+	public int getBits() {
+		return bits;
 	}
 
 	public boolean isNumslockLocked() {
-		return numslockLocked;
+		return (bits & NUMSLOCK) != 0;
 	}
 	public boolean isCapslockLocked() {
-		return capslockLocked;
+		return (bits & CAPSLOCK) != 0;
 	}
 	public boolean isScrollLockLocked() {
-		return scrollLockLocked;
+		return (bits & SCROLL_LOCK) != 0;
 	}
 	public boolean isShiftLocked() {
-		return shiftLocked;
+		return (bits & SHIFT) != 0;
 	}
 
-	private KeyboardState setNumslockLocked(boolean numslockLocked) {
-		this.numslockLocked = numslockLocked;
-		return this;
-	}
-	private KeyboardState setCapslockLocked(boolean capslockLocked) {
-		this.capslockLocked = capslockLocked;
-		return this;
-	}
-	private KeyboardState setScrollLockLocked(boolean scrollLockLocked) {
-		this.scrollLockLocked = scrollLockLocked;
-		return this;
-	}
-	private KeyboardState setShiftLocked(boolean shiftLocked) {
-		this.shiftLocked = shiftLocked;
-		return this;
-	}
 }
@@ -7,31 +7,60 @@ import utilities.json.IJsonable;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
- * Enum representing classification categories
+ * A mouse gesture an action can be activated with. This is either one of the built in classification categories
+ * recognized by the bundled model, or a custom gesture recorded by the user and referenced by name.
  */
-public enum MouseGesture implements IJsonable {
-    ALPHA("alpha"), CIRCLE_LEFT("circle_left"), GAMMA("gamma"), GREATER_THAN("greater_than"), HAT("hat"), HORIZONTAL("horizontal"), LESS_THAN("less_than"), N("N"), RANDOM("random"), SIX("six"), SQUARE("square"), SQUARE_ROOT("square_root"), TILDA("tilda"), TRIANGLE("triangle"), U("u"), VERTICAL("vertical"), Z("z");
+public final class MouseGesture implements IJsonable {
+    public static final MouseGesture ALPHA = new MouseGesture("alpha", false);
+    public static final MouseGesture CIRCLE_LEFT = new MouseGesture("circle_left", false);
+    public static final MouseGesture GAMMA = new MouseGesture("gamma", false);
+    public static final MouseGesture GREATER_THAN = new MouseGesture("greater_than", false);
+    public static final MouseGesture HAT = new MouseGesture("hat", false);
+    public static final MouseGesture HORIZONTAL = new MouseGesture("horizontal", false);
+    public static final MouseGesture LESS_THAN = new MouseGesture("less_than", false);
+    public static final MouseGesture N = new MouseGesture("N", false);
+    public static final MouseGesture RANDOM = new MouseGesture("random", false);
+    public static final MouseGesture SIX = new MouseGesture("six", false);
+    public static final MouseGesture SQUARE = new MouseGesture("square", false);
+    public static final MouseGesture SQUARE_ROOT = new MouseGesture("square_root", false);
+    public static final MouseGesture TILDA = new MouseGesture("tilda", false);
+    public static final MouseGesture TRIANGLE = new MouseGesture("triangle", false);
+    public static final MouseGesture U = new MouseGesture("u", false);
+    public static final MouseGesture VERTICAL = new MouseGesture("vertical", false);
+    public static final MouseGesture Z = new MouseGesture("z", false);
+
+    private static final List<MouseGesture> BUILT_IN = List.of(ALPHA, CIRCLE_LEFT, GAMMA, GREATER_THAN, HAT, HORIZONTAL, LESS_THAN, N, RANDOM, SIX, SQUARE, SQUARE_ROOT, TILDA, TRIANGLE, U, VERTICAL, Z);
 
     private final String text;
+    private final boolean custom;
 
     /**
      * @param text human readable text form of this classification
      */
-    MouseGesture(final String text) {
+    private MouseGesture(final String text, boolean custom) {
         this.text = text;
+        this.custom = custom;
     }
 
     /**
-     * Find the mouse gesture given its name.
+     * @return all built in classification categories.
+     */
+    public static List<MouseGesture> values() {
+        return BUILT_IN;
+    }
+
+    /**
+     * Find the built in mouse gesture given its name.
      *
      * @param name name of the mouse gesture
      * @return the found mouse gesture, or null if cannot find one
      */
     public static MouseGesture find(String name) {
-        for (MouseGesture classification : MouseGesture.values()) {
+        for (MouseGesture classification : BUILT_IN) {
             if (classification.text.equals(name)) {
                 return classification;
             }
@@ -40,6 +69,14 @@ public enum MouseGesture implements IJsonable {
         return null;
     }
 
+    /**
+     * @param name name the user gave to the custom gesture.
+     * @return the custom gesture with this name.
+     */
+    public static MouseGesture custom(String name) {
+        return new MouseGesture(name, true);
+    }
+
     /**
      * Parse a json list of strings into a set of mouse gestures.
      *
@@ -50,8 +87,12 @@ public enum MouseGesture implements IJsonable {
         Set<MouseGesture> output = new HashSet<>();
         for (JsonNode node : nodes) {
             String name = node.getStringValue("name");
-            MouseGesture gesture = find(name);
+            if (node.isBooleanValue("custom") && node.getBooleanValue("custom")) {
+                output.add(custom(name));
+                continue;
+            }
 
+            MouseGesture gesture = find(name);
             if (gesture != null) {
                 output.add(gesture);
             }
@@ -59,13 +100,45 @@ public enum MouseGesture implements IJsonable {
         return output;
     }
 
+    /**
+     * @return whether this is a gesture recorded by the user rather than a built in one.
+     */
+    public boolean isCustom() {
+        return custom;
+    }
+
+    public String getName() {
+        return text;
+    }
+
     @Override
     public String toString() {
         return text;
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(text, custom);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MouseGesture other)) {
+            return false;
+        }
+        return custom == other.custom && text.equals(other.text);
+    }
+
     @Override
     public JsonRootNode jsonize() {
+        if (custom) {
+            return JsonNodeFactories.object(
+                    JsonNodeFactories.field("name", JsonNodeFactories.string(text)),
+                    JsonNodeFactories.field("custom", JsonNodeFactories.booleanNode(true)));
+        }
         return JsonNodeFactories.object(JsonNodeFactories.field("name", JsonNodeFactories.string(text)));
     }
-}
\ No newline at end of file
+}
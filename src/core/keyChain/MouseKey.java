@@ -12,6 +12,10 @@ public final class MouseKey implements ButtonStroke {
 
     static final String TYPE_STRING = "mouse_key";
 
+    // Canonical instances for buttons whose key is a single bit mask, e.g. InputEvent.BUTTON1_DOWN_MASK.
+    // Filled lazily. Racing threads may both create an instance, which is harmless since keys are immutable.
+    private static final MouseKey[] CANONICAL = new MouseKey[Integer.SIZE * 2];
+
     private final int key;
     private final boolean isPressed;
 
@@ -21,11 +25,24 @@ public final class MouseKey implements ButtonStroke {
     }
 
     public static MouseKey of(int key) {
-        return new MouseKey(key, false);
+        return of(key, false);
     }
 
-    private static MouseKey of(int key, boolean isPressed) {
-        return new MouseKey(key, isPressed);
+    /**
+     * @return the canonical mouse key for the button and press state.
+     */
+    public static MouseKey of(int key, boolean isPressed) {
+        if (Integer.bitCount(key) != 1) {
+            return new MouseKey(key, isPressed);
+        }
+
+        int index = Integer.numberOfTrailingZeros(key) * 2 + (isPressed ? 1 : 0);
+        MouseKey mouseKey = CANONICAL[index];
+        if (mouseKey == null) {
+            mouseKey = new MouseKey(key, isPressed);
+            CANONICAL[index] = mouseKey;
+        }
+        return mouseKey;
     }
 
     public static MouseKey of(NativeMouseEvent mouseEvent) {
@@ -34,7 +51,7 @@ public final class MouseKey implements ButtonStroke {
             throw new IllegalStateException("Constructing mouse key with mouse event with state " + s + ". Want either pressed or released.");
         }
 
-        return new MouseKey(mouseEvent.getButton(), mouseEvent.getState() == State.PRESSED);
+        return of(mouseEvent.getButton(), s == State.PRESSED);
     }
 
     public static MouseKey parseJSON(JsonNode n) {
@@ -70,7 +87,7 @@ public final class MouseKey implements ButtonStroke {
 
     @Override
     public MouseKey clone() {
-        return of(key, isPressed);
+        return this;
     }
 
     @Override
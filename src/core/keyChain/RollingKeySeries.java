@@ -1,37 +1,40 @@
 package core.keyChain;
 
-import core.keyChain.ButtonStroke.KeyboardResult;
 import utilities.KeyCodeToChar;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.ListIterator;
 
 /**
  * A chronologically ordered key series that have an upper limit of number of
  * key strokes and will remove the last one.
+ * <p>
+ * Strokes are stored as {@link StrokeCode}s in a fixed size ring, so adding a stroke is constant time and never
+ * allocates regardless of the limit. Reading a stroke decodes it back into its canonical {@link ButtonStroke}, and
+ * matchers can read the codes directly with {@link #getCode(int)}.
  */
 public final class RollingKeySeries extends KeySeries {
 
-    private static final int DEFAULT_LIMIT = 100;
+    public static final int DEFAULT_LIMIT = 100;
 
-    private final int limit;
-    private final LinkedList<ButtonStroke> keys; // This is an alias for the underlying keys.
+    private final int[] codes;
+    private int start;
+    private int size;
 
     public RollingKeySeries() {
-        this(List.of(), DEFAULT_LIMIT);
+        this(DEFAULT_LIMIT);
     }
 
-    private RollingKeySeries(List<ButtonStroke> keys, int limit) {
+    /**
+     * @param limit maximum number of strokes kept.
+     */
+    public RollingKeySeries(int limit) {
         super();
-        super.keys = new LinkedList<>();
-        this.keys = (LinkedList<ButtonStroke>) super.keys;
-
-        this.limit = limit;
-
-        for (ButtonStroke key : keys) {
-            addKeyStroke(key);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive but got " + limit + ".");
         }
+        this.codes = new int[limit];
+        super.keys = new StrokeView();
     }
 
     /*
@@ -51,20 +54,59 @@ public final class RollingKeySeries extends KeySeries {
      */
     @Override
     public void addKeyStroke(ButtonStroke stroke) {
-        keys.add(stroke);
-        if (keys.size() > limit) {
-            keys.removeFirst();
+        addCode(StrokeCode.of(stroke));
+    }
+
+    /**
+     * Add a single stroke to the key chain, evicting the oldest one if the limit is reached.
+     *
+     * @param code {@link StrokeCode} of the stroke to add.
+     */
+    public void addCode(int code) {
+        if (size < codes.length) {
+            codes[(start + size) % codes.length] = code;
+            size++;
+            return;
         }
+        codes[start] = code;
+        start = (start + 1) % codes.length;
+    }
+
+    /**
+     * @param index index of the stroke, 0 being the oldest stroke kept.
+     * @return {@link StrokeCode} of the stroke.
+     */
+    public int getCode(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+        return codes[(start + index) % codes.length];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clearKeys() {
+        start = 0;
+        size = 0;
     }
 
     /**
      * @return last key stroke in the series.
      */
     public ButtonStroke getLast() {
-        if (keys.isEmpty()) {
+        if (size == 0) {
             return null;
         }
-        return keys.getLast();
+        return StrokeCode.toStroke(getCode(size - 1));
     }
 
 
@@ -78,13 +120,15 @@ public final class RollingKeySeries extends KeySeries {
         StringBuilder builder = new StringBuilder();
         KeyboardState keyboardState = KeyboardState.getDefault();
 
-        for (ButtonStroke buttonStroke : getButtonStrokes()) {
-            KeyboardResult typeResult = buttonStroke.getTypedString(keyboardState);
-            keyboardState = typeResult.keyboardState();
+        for (int i = 0; i < size; i++) {
+            int code = getCode(i);
+            if (StrokeCode.isMouse(code)) {
+                continue;
+            }
 
-            if (buttonStroke.isPressed()) {
-                String s = typeResult.typedString();
-                builder.append(s);
+            keyboardState = keyboardState.changeWith((KeyStroke) StrokeCode.toStroke(code));
+            if (StrokeCode.isPressed(code)) {
+                builder.append(KeyCodeToChar.getCharForCode(StrokeCode.key(code), keyboardState));
             }
         }
 
@@ -110,18 +154,14 @@ public final class RollingKeySeries extends KeySeries {
     }
 
     private boolean collideWithKeySequence(KeySequence other) {
-        List<ButtonStroke> otherKeyStrokes = other.getButtonStrokes();
-        if (otherKeyStrokes.size() > keys.size()) {
+        List<ButtonStroke> otherKeyStrokes = other.keys;
+        if (otherKeyStrokes.size() > size) {
             return false;
         }
 
-        ListIterator<ButtonStroke> otherIterator = otherKeyStrokes.listIterator(otherKeyStrokes.size());
-        ListIterator<ButtonStroke> iterator = keys.listIterator(keys.size());
+        int offset = size - otherKeyStrokes.size();
         for (int i = 0; i < otherKeyStrokes.size(); i++) {
-            ButtonStroke otherKeyStroke = otherIterator.previous();
-            ButtonStroke keyStroke = iterator.previous();
-
-            if (!otherKeyStroke.equals(keyStroke)) {
+            if (!StrokeCode.matches(StrokeCode.of(otherKeyStrokes.get(i)), getCode(offset + i))) {
                 return false;
             }
         }
@@ -129,8 +169,23 @@ public final class RollingKeySeries extends KeySeries {
     }
 
     private boolean collideWithActivationPhrase(ActivationPhrase other) {
-        int lastCode = keys.listIterator(keys.size()).previous().getKey();
+        int lastCode = StrokeCode.key(getCode(size - 1));
         boolean isTypedChar = KeyCodeToChar.hasCharForCode(lastCode, KeyboardState.getDefault());
         return getTypedString().endsWith(other.getValue()) && isTypedChar;
     }
+
+    /**
+     * Read only view of the ring for the methods inherited from {@link KeySeries}.
+     */
+    private final class StrokeView extends AbstractList<ButtonStroke> {
+        @Override
+        public ButtonStroke get(int index) {
+            return StrokeCode.toStroke(getCode(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
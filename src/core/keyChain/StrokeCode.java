@@ -0,0 +1,144 @@
+package core.keyChain;
+
+/**
+ * Packs a {@link ButtonStroke} into a single int so that matchers can work on primitive values.
+ * <p>
+ * Layout, starting from the least significant bit: 1 bit for the source (keyboard or mouse),
+ * 2 bits for the {@link KeyStroke.Modifier} value, 1 bit for pressed/released, and the key in the remaining bits.
+ * <p>
+ * Two codes refer to the same button if they are equal after {@link #identity(int)}.
+ * Two codes are considered matching under the same rules as {@link KeyStroke#equals(Object)},
+ * i.e. {@link KeyStroke.Modifier#KEY_MODIFIER_UNKNOWN} matches both left and right.
+ */
+public final class StrokeCode {
+
+    /**
+     * Maximum number of identities returned by {@link #equivalents(int, int[])}.
+     */
+    public static final int MAX_EQUIVALENTS = 3;
+
+    private static final int SOURCE_MOUSE = 1;
+    private static final int MODIFIER_SHIFT = 1;
+    private static final int MODIFIER_MASK = 0b11 << MODIFIER_SHIFT;
+    private static final int PRESSED = 1 << 3;
+    private static final int KEY_SHIFT = 4;
+
+    private static final int MODIFIER_UNKNOWN = 0;
+    private static final int MODIFIER_LEFT = 1;
+    private static final int MODIFIER_RIGHT = 2;
+
+    private StrokeCode() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    /**
+     * @param stroke stroke to encode.
+     * @return the code of the stroke, including whether it is pressed.
+     */
+    public static int of(ButtonStroke stroke) {
+        int modifier = MODIFIER_UNKNOWN;
+        if (stroke instanceof KeyStroke keyStroke) {
+            modifier = keyStroke.m().getValue();
+        }
+        return of(stroke.getSource(), stroke.getKey(), modifier, stroke.isPressed());
+    }
+
+    /**
+     * Decode a code back into a stroke. This returns the canonical instances of {@link KeyStroke} and
+     * {@link MouseKey}, so it does not allocate for regular keys and buttons.
+     *
+     * @param code code of the stroke, including whether it is pressed.
+     * @return the stroke the code was encoded from.
+     */
+    public static ButtonStroke toStroke(int code) {
+        if (isMouse(code)) {
+            return MouseKey.of(key(code), isPressed(code));
+        }
+        return KeyStroke.of(key(code), KeyStroke.Modifier.forValue(modifier(code)), isPressed(code));
+    }
+
+    static int of(ButtonStroke.Source source, int key, int modifier, boolean pressed) {
+        int code = (key << KEY_SHIFT) | (modifier << MODIFIER_SHIFT);
+        if (source == ButtonStroke.Source.MOUSE) {
+            code |= SOURCE_MOUSE;
+        }
+        if (pressed) {
+            code |= PRESSED;
+        }
+        return code;
+    }
+
+    /**
+     * @return the code with the pressed/released information removed.
+     */
+    public static int identity(int code) {
+        return code & ~PRESSED;
+    }
+
+    /**
+     * @return the identity of the code with the modifier replaced by {@link KeyStroke.Modifier#KEY_MODIFIER_UNKNOWN}.
+     */
+    public static int generalize(int code) {
+        return identity(code) & ~MODIFIER_MASK;
+    }
+
+    public static int key(int code) {
+        return code >>> KEY_SHIFT;
+    }
+
+    public static boolean isPressed(int code) {
+        return (code & PRESSED) != 0;
+    }
+
+    public static boolean isMouse(int code) {
+        return (code & SOURCE_MOUSE) != 0;
+    }
+
+    /**
+     * Check whether an incoming stroke matches a stroke in a registered pattern.
+     *
+     * @param pattern code of the stroke in the pattern.
+     * @param input   code of the incoming stroke.
+     */
+    public static boolean matches(int pattern, int input) {
+        pattern = identity(pattern);
+        input = identity(input);
+        if (generalize(pattern) != generalize(input)) {
+            return false;
+        }
+        int patternModifier = modifier(pattern);
+        int inputModifier = modifier(input);
+        return patternModifier == MODIFIER_UNKNOWN || inputModifier == MODIFIER_UNKNOWN || patternModifier == inputModifier;
+    }
+
+    /**
+     * Write all identities that {@link #matches(int, int)} the given code into the output array.
+     * Since matching is symmetric, these are both the pattern strokes an incoming stroke can match,
+     * and the incoming strokes a pattern stroke can match.
+     *
+     * @param code code to find equivalents for.
+     * @param out  array of length at least {@link #MAX_EQUIVALENTS} to write the identities into.
+     * @return number of identities written.
+     */
+    public static int equivalents(int code, int[] out) {
+        int base = generalize(code);
+        if (isMouse(code)) {
+            out[0] = base;
+            return 1;
+        }
+
+        int modifier = modifier(code);
+        out[0] = base | (MODIFIER_UNKNOWN << MODIFIER_SHIFT);
+        if (modifier == MODIFIER_UNKNOWN) {
+            out[1] = base | (MODIFIER_LEFT << MODIFIER_SHIFT);
+            out[2] = base | (MODIFIER_RIGHT << MODIFIER_SHIFT);
+            return 3;
+        }
+        out[1] = base | (modifier << MODIFIER_SHIFT);
+        return 2;
+    }
+
+    private static int modifier(int code) {
+        return (code & MODIFIER_MASK) >>> MODIFIER_SHIFT;
+    }
+}
@@ -0,0 +1,101 @@
+package core.keyChain;
+
+import utilities.KeyCodeToChar;
+
+/**
+ * Rolling buffer of the characters most recently typed on the keyboard.
+ * <p>
+ * Unlike {@link RollingKeySeries#getTypedString()}, which replays all stored strokes each time it is called,
+ * this buffer applies each stroke exactly once: it keeps track of the {@link KeyboardState} (shift, caps lock, etc.)
+ * and appends the typed characters to a fixed size ring. When full, the oldest characters are dropped.
+ */
+public final class TypedCharacterBuffer implements CharSequence {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final char[] characters;
+    private int start;
+    private int size;
+    private KeyboardState keyboardState;
+
+    public TypedCharacterBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TypedCharacterBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive but got " + capacity + ".");
+        }
+        this.characters = new char[capacity];
+        this.keyboardState = KeyboardState.getDefault();
+    }
+
+    /**
+     * Apply a stroke to this buffer. Releases and non keyboard strokes only update the keyboard state.
+     *
+     * @param stroke the new stroke.
+     * @return the characters typed by this stroke, or empty string if nothing is typed.
+     */
+    public String add(ButtonStroke stroke) {
+        if (!(stroke instanceof KeyStroke keyStroke)) {
+            return "";
+        }
+
+        keyboardState = keyboardState.changeWith(keyStroke);
+        if (!keyStroke.isPressed()) {
+            return "";
+        }
+
+        String typed = KeyCodeToChar.getCharForCode(keyStroke.getKey(), keyboardState);
+        for (int i = 0; i < typed.length(); i++) {
+            append(typed.charAt(i));
+        }
+        return typed;
+    }
+
+    /**
+     * Remove all characters and reset the keyboard state.
+     */
+    public void clear() {
+        start = 0;
+        size = 0;
+        keyboardState = KeyboardState.getDefault();
+    }
+
+    private void append(char c) {
+        if (size < characters.length) {
+            characters[(start + size) % characters.length] = c;
+            size++;
+            return;
+        }
+        characters[start] = c;
+        start = (start + 1) % characters.length;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bound for length " + size + ".");
+        }
+        return characters[(start + index) % characters.length];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append(charAt(i));
+        }
+        return builder.toString();
+    }
+}
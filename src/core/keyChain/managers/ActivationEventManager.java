@@ -20,18 +20,41 @@ package core.keyChain.managers;
 
 import core.keyChain.ActionInvoker;
 import core.keyChain.ActivationEvent;
+import core.keyChain.ActivationMatch;
 import core.userDefinedTask.UserDefinedAction;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Matches activation events against registered actions.
+ * <p>
+ * {@link #onActivationEvent(ActivationEvent)} and {@link #clear()} are only called from the single thread dispatching
+ * events. Registration and collision checks may be called from any thread, and must not block dispatch.
+ */
 public interface ActivationEventManager {
+
+    /**
+     * Opaque, immutable state of the registrations of a manager, see {@link #snapshot()}.
+     */
+    interface Snapshot {
+    }
+
     void startListening();
 
     void stopListening();
 
-    Set<UserDefinedAction> onActivationEvent(ActivationEvent event);
+    /**
+     * @return the actions matched by the event, each with the part of its activation that matched.
+     */
+    List<ActivationMatch> onActivationEvent(ActivationEvent event);
+
+    /**
+     * @return bitmask of the {@link EventClass}es this manager should currently receive, given its registrations.
+     * Events of other classes may be withheld from {@link #onActivationEvent(ActivationEvent)}.
+     */
+    int interests();
 
     void clear();
 
@@ -41,7 +64,48 @@ public interface ActivationEventManager {
         return collision(List.of(activation));
     }
 
+    /**
+     * Check a batch of actions against each other and against the registered actions, in a single pass.
+     * Registered actions that are part of the batch are considered replaced by the batch, and an action never
+     * collides with itself.
+     *
+     * @return every action involved in a collision, or empty set if the whole batch can be registered.
+     */
+    Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions);
+
     Set<UserDefinedAction> registerAction(UserDefinedAction action);
 
+    /**
+     * Register a batch of actions, rebuilding the registrations once instead of once per action.
+     * As with {@link #registerAction(UserDefinedAction)}, registered actions colliding with the batch are unregistered.
+     * Collisions within the batch are not resolved, so check {@link #collisionsOf(Collection)} first.
+     *
+     * @return the registered actions that were unregistered.
+     */
+    Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions);
+
     Set<UserDefinedAction> unRegisterAction(UserDefinedAction action);
+
+    /**
+     * Unregister a batch of actions, rebuilding the registrations once instead of once per action.
+     *
+     * @return the registered actions that were unregistered.
+     */
+    Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions);
+
+    /**
+     * @return every action currently registered with this manager.
+     */
+    Set<UserDefinedAction> registeredActions();
+
+    /**
+     * @return the current registrations. Taking a snapshot does not copy anything.
+     */
+    Snapshot snapshot();
+
+    /**
+     * Replace the current registrations with a snapshot previously returned by {@link #snapshot()} of this manager.
+     * Nothing is recompiled, so this is as cheap as swapping a reference.
+     */
+    void restore(Snapshot snapshot);
 }
\ No newline at end of file
@@ -2,21 +2,43 @@ package core.keyChain.managers;
 
 import core.keyChain.ActionInvoker;
 import core.keyChain.ActivationEvent;
+import core.keyChain.ActivationMatch;
 import core.userDefinedTask.UserDefinedAction;
+import utilities.LatencyHistogram;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * Combines several managers into one.
+ * <p>
+ * Events are routed through a table from {@link EventClass} to the managers currently interested in that class, so
+ * e.g. a keystroke never reaches a manager without registrations. The table is rebuilt whenever registrations change.
+ */
 public final class AggregateActivationEventManager implements ActivationEventManager {
 
     private final List<ActivationEventManager> managers;
+    private final LatencyHistogram[] latencies; // Time spent matching in each manager.
+    private volatile Routes routes;
+    // Only accessed from the dispatching thread.
+    private Routes dispatchRoutes;
 
     public AggregateActivationEventManager(ActivationEventManager... managers) {
         this.managers = Arrays.asList(managers);
+        this.latencies = new LatencyHistogram[managers.length];
+        for (int i = 0; i < managers.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        this.routes = Routes.of(this.managers);
+        this.dispatchRoutes = routes;
     }
 
     @Override
@@ -30,8 +52,86 @@ public final class AggregateActivationEventManager implements ActivationEventMan
     }
 
     @Override
-    public Set<UserDefinedAction> onActivationEvent(ActivationEvent event) {
-        return managers.stream().map(m -> m.onActivationEvent(event)).flatMap(Collection::stream).collect(Collectors.toSet());
+    public List<ActivationMatch> onActivationEvent(ActivationEvent event) {
+        List<ActivationMatch> output = new ArrayList<>();
+        collectMatches(event, output);
+        return output;
+    }
+
+    /**
+     * Match the event against the interested managers only, appending the matches to the output.
+     * Does not allocate if no manager matches, so the dispatcher can reuse the same output list for every event.
+     */
+    void collectMatches(ActivationEvent event, List<ActivationMatch> output) {
+        Routes current = syncRoutes();
+        int start = output.size();
+        for (int index : current.byClass()[EventClass.index(EventClass.of(event))]) {
+            long matchStart = System.nanoTime();
+            List<ActivationMatch> matches = managers.get(index).onActivationEvent(event);
+            latencies[index].record(System.nanoTime() - matchStart);
+            for (int i = 0; i < matches.size(); i++) {
+                ActivationMatch match = matches.get(i);
+                // An action matched by several managers on the same event only runs once.
+                if (!containsAction(output, start, match.getAction())) {
+                    output.add(match);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int interests() {
+        int interests = EventClass.NONE;
+        for (int interest : routes.interests()) {
+            interests |= interest;
+        }
+        return interests;
+    }
+
+    private static boolean containsAction(List<ActivationMatch> matches, int start, UserDefinedAction action) {
+        for (int i = start; i < matches.size(); i++) {
+            if (matches.get(i).getAction() == action) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pick up the latest routes. A manager that was not receiving any event may have missed strokes that its
+     * dispatch state depends on, e.g. the release of a held key, so it starts over from a cleared state.
+     */
+    private Routes syncRoutes() {
+        Routes latest = routes;
+        if (latest == dispatchRoutes) {
+            return latest;
+        }
+
+        for (int i = 0; i < managers.size(); i++) {
+            if (dispatchRoutes.interests()[i] == EventClass.NONE && latest.interests()[i] != EventClass.NONE) {
+                managers.get(i).clear();
+            }
+        }
+        dispatchRoutes = latest;
+        return latest;
+    }
+
+    /**
+     * @return histogram of the time spent matching events in each manager, by name of the manager.
+     */
+    Map<String, LatencyHistogram> getLatencies() {
+        Map<String, LatencyHistogram> output = new LinkedHashMap<>();
+        for (int i = 0; i < managers.size(); i++) {
+            output.put(managers.get(i).getClass().getSimpleName(), latencies[i]);
+        }
+        return output;
+    }
+
+    /**
+     * Recompute which manager is interested in which events, after the interests of a manager changed.
+     */
+    synchronized void updateRoutes() {
+        routes = Routes.of(managers);
     }
 
     @Override
@@ -44,17 +144,116 @@ public final class AggregateActivationEventManager implements ActivationEventMan
         return flatten(managers.stream().map(m -> m.collision(activations)));
     }
 
+    @Override
+    public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+        return flatten(managers.stream().map(m -> m.collisionsOf(actions)));
+    }
+
     @Override
     public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-        return flatten(managers.stream().map(m -> m.registerAction(action)));
+        Set<UserDefinedAction> output = flatten(managers.stream().map(m -> m.registerAction(action)));
+        updateRoutes();
+        return output;
+    }
+
+    @Override
+    public Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> output = flatten(managers.stream().map(m -> m.registerActions(actions)));
+        updateRoutes();
+        return output;
     }
 
     @Override
     public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
-        return flatten(managers.stream().map(m -> m.unRegisterAction(action)));
+        Set<UserDefinedAction> output = flatten(managers.stream().map(m -> m.unRegisterAction(action)));
+        updateRoutes();
+        return output;
+    }
+
+    @Override
+    public Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> output = flatten(managers.stream().map(m -> m.unRegisterActions(actions)));
+        updateRoutes();
+        return output;
+    }
+
+    @Override
+    public Set<UserDefinedAction> registeredActions() {
+        return flatten(managers.stream().map(ActivationEventManager::registeredActions));
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return new AggregateSnapshot(managers.stream().map(ActivationEventManager::snapshot).toList());
+    }
+
+    @Override
+    public void restore(Snapshot snapshot) {
+        List<Snapshot> snapshots = ((AggregateSnapshot) snapshot).snapshots;
+        for (int i = 0; i < managers.size(); i++) {
+            managers.get(i).restore(snapshots.get(i));
+        }
+        updateRoutes();
     }
 
     private Set<UserDefinedAction> flatten(Stream<Set<UserDefinedAction>> streamOfCollection) {
         return streamOfCollection.flatMap(Collection::stream).collect(Collectors.toSet());
     }
+
+    /**
+     * For each {@link EventClass} index, the indices of the managers interested in it, along with the interests of
+     * every manager.
+     */
+    private record Routes(int[][] byClass, int[] interests) {
+        private static Routes of(List<ActivationEventManager> managers) {
+            int[] interests = new int[managers.size()];
+            for (int i = 0; i < managers.size(); i++) {
+                interests[i] = managers.get(i).interests();
+            }
+
+            int[][] byClass = new int[EventClass.COUNT][];
+            for (int index = 0; index < EventClass.COUNT; index++) {
+                int bit = 1 << index;
+                byClass[index] = IntStream.range(0, managers.size()).filter(i -> (interests[i] & bit) != 0).toArray();
+            }
+            return new Routes(byClass, interests);
+        }
+    }
+
+    /**
+     * Snapshots of all managers, in the order of the managers. Two aggregate snapshots are equal only if they hold
+     * the very same snapshot of every manager, so they can identify a registration state without comparing content.
+     */
+    private static final class AggregateSnapshot implements Snapshot {
+        private final List<Snapshot> snapshots;
+
+        private AggregateSnapshot(List<Snapshot> snapshots) {
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (Snapshot snapshot : snapshots) {
+                hash = 31 * hash + System.identityHashCode(snapshot);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof AggregateSnapshot other) || other.snapshots.size() != snapshots.size()) {
+                return false;
+            }
+            for (int i = 0; i < snapshots.size(); i++) {
+                if (snapshots.get(i) != other.snapshots.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
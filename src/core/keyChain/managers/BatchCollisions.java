@@ -0,0 +1,38 @@
+package core.keyChain.managers;
+
+import core.keyChain.ActionInvoker;
+import core.userDefinedTask.UserDefinedAction;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Helps managers implement {@link ActivationEventManager#collisionsOf(Collection)}.
+ */
+final class BatchCollisions {
+
+    private BatchCollisions() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    /**
+     * @param actions    the batch of actions.
+     * @param collisions finds the actions colliding with an activation, in an index containing both the batch and the
+     *                   registered actions not part of the batch.
+     * @return every action involved in a collision with another action.
+     */
+    static Set<UserDefinedAction> find(Collection<UserDefinedAction> actions, Function<ActionInvoker, Set<UserDefinedAction>> collisions) {
+        Set<UserDefinedAction> output = new HashSet<>();
+        for (UserDefinedAction action : actions) {
+            Set<UserDefinedAction> collided = collisions.apply(action.getActivation());
+            collided.remove(action);
+            if (!collided.isEmpty()) {
+                output.add(action);
+                output.addAll(collided);
+            }
+        }
+        return output;
+    }
+}
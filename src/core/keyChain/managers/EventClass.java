@@ -0,0 +1,52 @@
+package core.keyChain.managers;
+
+import core.keyChain.ActivationEvent;
+import core.keyChain.ActivationEvent.EventType;
+import core.keyChain.ButtonStroke;
+
+/**
+ * Coarse classes of activation events, by event type, source and press/release, used to route each event only to
+ * the managers interested in its class. A set of classes is a bitmask of the constants below.
+ */
+final class EventClass {
+
+    static final int SHARED_VARIABLE = 1;
+    static final int KEYBOARD_PRESSED = 1 << 1;
+    static final int KEYBOARD_RELEASED = 1 << 2;
+    static final int MOUSE_PRESSED = 1 << 3;
+    static final int MOUSE_RELEASED = 1 << 4;
+
+    static final int KEYBOARD = KEYBOARD_PRESSED | KEYBOARD_RELEASED;
+    static final int BUTTON_STROKES = KEYBOARD | MOUSE_PRESSED | MOUSE_RELEASED;
+    static final int PRESSED = KEYBOARD_PRESSED | MOUSE_PRESSED;
+    static final int RELEASED = KEYBOARD_RELEASED | MOUSE_RELEASED;
+
+    static final int NONE = 0;
+    static final int COUNT = 5;
+
+    private EventClass() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    /**
+     * @return the single class bit of the event.
+     */
+    static int of(ActivationEvent event) {
+        if (event.getType() == EventType.SHARED_VARIABLE) {
+            return SHARED_VARIABLE;
+        }
+
+        ButtonStroke stroke = event.getButtonStroke();
+        if (stroke.getSource() == ButtonStroke.Source.MOUSE) {
+            return stroke.isPressed() ? MOUSE_PRESSED : MOUSE_RELEASED;
+        }
+        return stroke.isPressed() ? KEYBOARD_PRESSED : KEYBOARD_RELEASED;
+    }
+
+    /**
+     * @return index of a single class bit, between 0 and {@link #COUNT} exclusive.
+     */
+    static int index(int eventClass) {
+        return Integer.numberOfTrailingZeros(eventClass);
+    }
+}
@@ -20,7 +20,10 @@ package core.keyChain.managers;
 
 import core.config.Config;
 import core.keyChain.ActivationEvent;
+import core.keyChain.ActivationMatch;
+import core.keyChain.ButtonStroke;
 import core.keyChain.KeyStroke;
+import core.keyChain.MouseGesture;
 import core.keyChain.MouseKey;
 import core.keyChain.ActionInvoker;
 import core.userDefinedTask.UserDefinedAction;
@@ -32,29 +35,63 @@ import org.simplenativehooks.events.NativeMouseEvent;
 import org.simplenativehooks.listeners.AbstractGlobalKeyListener;
 import org.simplenativehooks.listeners.AbstractGlobalMouseListener;
 import org.simplenativehooks.utilities.Function;
+import utilities.LatencyHistogram;
 import utilities.StringUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import static core.config.Constants.HALT_TASK;
 
 public final class GlobalEventsManager {
 
     private static final Logger LOGGER = Logger.getLogger(GlobalEventsManager.class.getName());
+    private static final int MAX_CACHED_TRANSITIONS = 32;
 
     private final Config config;
     private final ActionExecutor actionExecutor;
     private final ExecutionPreconditionsChecker executionPreconditionsChecker;
-    private final ActivationEventManager taskActivationManager;
+    private final AggregateActivationEventManager taskActivationManager;
+    private final MouseGestureManager mouseGestureManager;
+    private final HookEventDispatcher dispatcher;
+    private final Map<Transition, ActivationEventManager.Snapshot> transitions;
+    private final ActivationEvent event; // Reused for every event, only accessed from the dispatcher thread.
+    private final List<ActivationMatch> matches; // Reused for every event, only accessed from the dispatcher thread.
+    private final LatencyHistogram queueLatencies;
+    private final LatencyHistogram matchingLatencies;
+    private final LatencyHistogram preconditionsLatencies;
+    private final LatencyHistogram executorLatencies;
+    private final LatencyHistogram endToEndLatencies;
 
     public GlobalEventsManager(Config config, ActionExecutor actionExecutor) {
         this.config = config;
         this.actionExecutor = actionExecutor;
 
         this.executionPreconditionsChecker = ExecutionPreconditionsChecker.of();
-        this.taskActivationManager = new AggregateActivationEventManager(new KeyChainManager(config), new KeySequenceManager(config), new PhraseManager(config), new MouseGestureManager(config), new SharedVariablesManager(), new GlobalKeyActionManager(config));
+        this.mouseGestureManager = new MouseGestureManager(config);
+        this.taskActivationManager = new AggregateActivationEventManager(new KeyChainManager(config), new KeySequenceManager(config), new PhraseManager(config), mouseGestureManager, new SharedVariablesManager(), new GlobalKeyActionManager(config));
+        this.dispatcher = new HookEventDispatcher(this::dispatch);
+        this.event = ActivationEvent.reusable();
+        this.matches = new ArrayList<>();
+        this.queueLatencies = new LatencyHistogram();
+        this.matchingLatencies = new LatencyHistogram();
+        this.preconditionsLatencies = new LatencyHistogram();
+        this.executorLatencies = new LatencyHistogram();
+        this.endToEndLatencies = new LatencyHistogram();
+        this.transitions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Transition, ActivationEventManager.Snapshot> eldest) {
+                return size() > MAX_CACHED_TRANSITIONS;
+            }
+        };
     }
 
     /**
@@ -80,22 +117,14 @@ public final class GlobalEventsManager {
         mouseListener.setMousePressed(new Function<>() {
             @Override
             public Boolean apply(NativeMouseEvent r) {
-                MouseKey stroke = MouseKey.of(r);
-
-                Set<UserDefinedAction> actions = taskActivationManager.onActivationEvent(ActivationEvent.of(stroke));
-                actions = actions.stream().filter(executionPreconditionsChecker::shouldExecute).collect(Collectors.toSet());
-                actionExecutor.startExecutingActions(actions);
+                dispatcher.publish(r);
                 return true;
             }
         });
         mouseListener.setMouseReleased(new Function<>() {
             @Override
             public Boolean apply(NativeMouseEvent r) {
-                MouseKey stroke = MouseKey.of(r);
-
-                Set<UserDefinedAction> actions = taskActivationManager.onActivationEvent(ActivationEvent.of(stroke));
-                actions = actions.stream().filter(executionPreconditionsChecker::shouldExecute).collect(Collectors.toSet());
-                actionExecutor.startExecutingActions(actions);
+                dispatcher.publish(r);
                 return true;
             }
         });
@@ -106,26 +135,26 @@ public final class GlobalEventsManager {
 //            actionExecutor.startExecutingActions(actions);
 //        }));
 
+        dispatcher.start();
         taskActivationManager.startListening();
         keyListener.startListening();
         mouseListener.startListening();
     }
 
+    /**
+     * Stop matching hook events, once the native hooks have been removed. Events still queued are dropped.
+     */
+    public void stopGlobalListener() {
+        taskActivationManager.stopListening();
+        dispatcher.stop();
+    }
+
     private AbstractGlobalKeyListener getAbstractGlobalKeyListener() {
         AbstractGlobalKeyListener keyListener = GlobalListenerFactory.createGlobalKeyListener();
         keyListener.setKeyPressed(new Function<>() {
             @Override
             public Boolean apply(NativeKeyEvent r) {
-                KeyStroke stroke = KeyStroke.of(r);
-                LOGGER.fine("Key pressed " + stroke);
-
-                if (!shouldDelegate(stroke)) {
-                    return true;
-                }
-
-                Set<UserDefinedAction> actions = taskActivationManager.onActivationEvent(ActivationEvent.of(stroke));
-                actions = actions.stream().filter(executionPreconditionsChecker::shouldExecute).collect(Collectors.toSet());
-                actionExecutor.startExecutingActions(actions);
+                dispatcher.publish(r);
                 return true;
             }
         });
@@ -133,21 +162,115 @@ public final class GlobalEventsManager {
         keyListener.setKeyReleased(new Function<>() {
             @Override
             public Boolean apply(NativeKeyEvent r) {
-                KeyStroke stroke = KeyStroke.of(r);
-                LOGGER.fine("Key released " + stroke);
-                if (!shouldDelegate(stroke)) {
-                    return true;
-                }
-
-                Set<UserDefinedAction> actions = taskActivationManager.onActivationEvent(ActivationEvent.of(stroke));
-                actions = actions.stream().filter(executionPreconditionsChecker::shouldExecute).collect(Collectors.toSet());
-                actionExecutor.startExecutingActions(actions);
+                dispatcher.publish(r);
                 return true;
             }
         });
         return keyListener;
     }
 
+    /**
+     * Match a hook event against the registered activations and start the resulting actions.
+     * This runs on the dispatcher thread, in the order the events were received.
+     */
+    private void dispatch(HookEventRing.Slot slot) {
+        long start = System.nanoTime();
+        queueLatencies.record(start - slot.getPublishedNanos());
+        try {
+            dispatch(slot, start);
+        } finally {
+            endToEndLatencies.record(System.nanoTime() - slot.getPublishedNanos());
+        }
+    }
+
+    private void dispatch(HookEventRing.Slot slot, long start) {
+        ButtonStroke stroke;
+        if (slot.getKeyEvent() != null) {
+            KeyStroke keyStroke = KeyStroke.of(slot.getKeyEvent());
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Key " + (keyStroke.isPressed() ? "pressed " : "released ") + keyStroke);
+            }
+            if (!shouldDelegate(keyStroke)) {
+                return;
+            }
+            stroke = keyStroke;
+        } else {
+            stroke = MouseKey.of(slot.getMouseEvent());
+        }
+
+        try {
+            taskActivationManager.collectMatches(event.reset(stroke, slot.getPublishedNanos()), matches);
+            long matched = System.nanoTime();
+            matchingLatencies.record(matched - start);
+            if (matches.isEmpty()) {
+                return;
+            }
+
+            int kept = 0;
+            for (int i = 0; i < matches.size(); i++) {
+                ActivationMatch match = matches.get(i);
+                if (executionPreconditionsChecker.shouldExecute(match.getAction())) {
+                    matches.set(kept++, match);
+                }
+            }
+            matches.subList(kept, matches.size()).clear();
+            long checked = System.nanoTime();
+            preconditionsLatencies.record(checked - matched);
+
+            actionExecutor.startExecutingActions(matches);
+            executorLatencies.record(System.nanoTime() - checked);
+        } finally {
+            matches.clear();
+        }
+    }
+
+    /**
+     * @return metrics of the queue between the native hooks and activation matching.
+     */
+    public HookEventMetrics getHookEventMetrics() {
+        return dispatcher.getMetrics();
+    }
+
+    /**
+     * Summarize how long hook events spend in each stage of dispatch, in the order of the stages.
+     * Matching is further broken down by manager. Preconditions and executor are only timed for events that
+     * matched an action, and end to end covers everything from the hook callback to the end of dispatch.
+     *
+     * @return latency summary of each stage, by name of the stage.
+     */
+    public Map<String, LatencyHistogram.Summary> getDispatchLatencies() {
+        Map<String, LatencyHistogram.Summary> output = new LinkedHashMap<>();
+        output.put("Queue wait", queueLatencies.summarize());
+        output.put("Matching", matchingLatencies.summarize());
+        taskActivationManager.getLatencies().forEach((manager, latencies) -> output.put("Matching: " + manager, latencies.summarize()));
+        output.put("Preconditions", preconditionsLatencies.summarize());
+        output.put("Executor", executorLatencies.summarize());
+        output.put("End to end", endToEndLatencies.summarize());
+        return output;
+    }
+
+    /**
+     * Store the next mouse gesture the user draws as a template of a custom gesture, instead of activating tasks
+     * with it.
+     *
+     * @param name name of the custom gesture.
+     */
+    public void recordMouseGestureTemplate(String name) {
+        mouseGestureManager.recordTemplate(name);
+        taskActivationManager.updateRoutes();
+    }
+
+    /**
+     * Store the next mouse gesture the user draws as a sample to train the gesture model with, instead of activating
+     * tasks with it.
+     *
+     * @param label the built in gesture the user is about to draw.
+     */
+    public void recordMouseGestureTrainingSample(MouseGesture label) {
+        mouseGestureManager.recordTrainingSample(label);
+        taskActivationManager.updateRoutes();
+    }
+
     /**
      * Given a new key code coming in, consider whether we should delegate
      * to the {@link KeyStrokeManager}, or take actions and terminate.
@@ -157,7 +280,8 @@ public final class GlobalEventsManager {
     private boolean shouldDelegate(KeyStroke stroke) {
         if ((stroke.getKey() == HALT_TASK) && config.isEnabledHaltingKeyPressed()) {
             taskActivationManager.clear();
-            actionExecutor.haltAllTasks();
+            // Halting waits for the tasks to end, which must not hold up the hook events queued behind this one.
+            Thread.ofVirtual().name("Halt all tasks").start(actionExecutor::haltAllTasks);
             return false;
         }
         return true;
@@ -168,7 +292,8 @@ public final class GlobalEventsManager {
      *
      * @param action action to register.
      */
-    public void registerTask(UserDefinedAction action) {
+    public synchronized void registerTask(UserDefinedAction action) {
+        transitions.clear();
         taskActivationManager.registerAction(action);
     }
 
@@ -179,7 +304,7 @@ public final class GlobalEventsManager {
      * @param action        action to be re-registered with new activation.
      * @param newActivation new activation to be associated with the action.
      */
-    public void reRegisterTask(UserDefinedAction action, ActionInvoker newActivation) {
+    public synchronized void reRegisterTask(UserDefinedAction action, ActionInvoker newActivation) {
         unregisterTask(action);
         action.setActivation(newActivation);
         registerTask(action);
@@ -190,10 +315,96 @@ public final class GlobalEventsManager {
      *
      * @param action action whose activation will be removed.
      */
-    public void unregisterTask(UserDefinedAction action) {
+    public synchronized void unregisterTask(UserDefinedAction action) {
+        transitions.clear();
         taskActivationManager.unRegisterAction(action);
     }
 
+    /**
+     * Register a batch of actions at once. The batch is checked against itself and the registered actions in a single
+     * pass, and is either registered as a whole or not at all.
+     * <p>
+     * Registering a batch that was registered or unregistered from the same state before, e.g. when a task group is
+     * switched back and forth, swaps in the registrations compiled the first time instead of compiling them again.
+     *
+     * @param actions actions to register.
+     * @return all actions involved in collisions if nothing was registered, or empty set if the batch was registered.
+     */
+    public synchronized Set<UserDefinedAction> registerAll(Collection<UserDefinedAction> actions) {
+        ActivationEventManager.Snapshot from = taskActivationManager.snapshot();
+        Batch batch = Batch.of(actions);
+        if (restore(new Transition(from, true, batch))) {
+            return new HashSet<>();
+        }
+
+        Set<UserDefinedAction> collisions = taskActivationManager.collisionsOf(actions);
+        if (!collisions.isEmpty()) {
+            return collisions;
+        }
+
+        boolean noneRegistered = batch.actions().keySet().stream().noneMatch(taskActivationManager.registeredActions()::contains);
+        taskActivationManager.registerActions(actions);
+        ActivationEventManager.Snapshot to = taskActivationManager.snapshot();
+        transitions.put(new Transition(from, true, batch), to);
+        if (noneRegistered) {
+            // Nothing was replaced, so unregistering the batch again leads back to where we started.
+            transitions.put(new Transition(to, false, batch), from);
+        }
+        return collisions;
+    }
+
+    /**
+     * Unregister a batch of actions at once. Actions in the batch that are not registered are ignored.
+     * <p>
+     * Unregistering a batch that was registered or unregistered from the same state before swaps in the registrations
+     * compiled the first time instead of compiling them again.
+     *
+     * @param actions actions to unregister.
+     */
+    public synchronized void unregisterAll(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> registered = taskActivationManager.registeredActions();
+        List<UserDefinedAction> toRemove = actions.stream().filter(registered::contains).toList();
+        if (toRemove.isEmpty()) {
+            return;
+        }
+
+        ActivationEventManager.Snapshot from = taskActivationManager.snapshot();
+        Batch batch = Batch.of(toRemove);
+        if (restore(new Transition(from, false, batch))) {
+            return;
+        }
+
+        Set<UserDefinedAction> removed = taskActivationManager.unRegisterActions(toRemove);
+        ActivationEventManager.Snapshot to = taskActivationManager.snapshot();
+        transitions.put(new Transition(from, false, batch), to);
+        if (removed.equals(batch.actions().keySet()) && taskActivationManager.collisionsOf(toRemove).isEmpty()) {
+            // Registering the batch again would replace nothing, and so leads back to where we started.
+            transitions.put(new Transition(to, true, batch), from);
+        }
+    }
+
+    /**
+     * Swap in the registrations cached for the transition, if any. All managers are swapped between two hook events,
+     * so an event is never matched against the registrations of some managers before and others after the swap.
+     *
+     * @return whether the transition was cached.
+     */
+    private boolean restore(Transition transition) {
+        ActivationEventManager.Snapshot to = transitions.get(transition);
+        if (to == null) {
+            return false;
+        }
+        dispatcher.runBetweenEvents(() -> taskActivationManager.restore(to));
+        return true;
+    }
+
+    /**
+     * @return every task currently registered.
+     */
+    public Set<UserDefinedAction> getRegisteredTasks() {
+        return taskActivationManager.registeredActions();
+    }
+
     /**
      * @param action
      * @return return set of actions that collide with this action, excluding the input task.
@@ -213,4 +424,26 @@ public final class GlobalEventsManager {
     public Set<UserDefinedAction> isActivationRegistered(ActionInvoker activation) {
         return taskActivationManager.collision(activation);
     }
+
+    /**
+     * A registration or unregistration of a batch, starting from a snapshot of the registrations.
+     */
+    private record Transition(ActivationEventManager.Snapshot from, boolean register, Batch batch) {
+    }
+
+    /**
+     * The actions of a batch, with a copy of their activations taken when the batch was seen, so that the same actions
+     * with changed activations do not match a cached transition.
+     */
+    private record Batch(Map<UserDefinedAction, ActionInvoker> actions) {
+        private static Batch of(Collection<UserDefinedAction> actions) {
+            Map<UserDefinedAction, ActionInvoker> activations = new HashMap<>();
+            for (UserDefinedAction action : actions) {
+                ActionInvoker activation = ActionInvoker.newBuilder().build();
+                activation.copy(action.getActivation());
+                activations.put(action, activation);
+            }
+            return new Batch(Map.copyOf(activations));
+        }
+    }
 }
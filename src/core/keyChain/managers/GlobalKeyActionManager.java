@@ -2,6 +2,7 @@ package core.keyChain.managers;
 
 import core.config.Config;
 import core.keyChain.ActionInvoker;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ButtonStroke;
 import core.keyChain.KeyChain;
 import core.userDefinedTask.UserDefinedAction;
@@ -10,13 +11,11 @@ import java.util.*;
 
 public final class GlobalKeyActionManager extends KeyStrokeManager {
 
-    private final Set<UserDefinedAction> onKeyStrokePressedTasks;
-    private final Set<UserDefinedAction> onKeyReleasedTasks;
+    private volatile Registry registry;
 
     public GlobalKeyActionManager(Config config) {
         super(config);
-        onKeyStrokePressedTasks = new HashSet<>();
-        onKeyReleasedTasks = new HashSet<>();
+        registry = new Registry(Set.of(), Set.of());
     }
 
     @Override
@@ -25,21 +24,27 @@ public final class GlobalKeyActionManager extends KeyStrokeManager {
     }
 
     @Override
-    public Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke) {
-        for (UserDefinedAction action : onKeyStrokePressedTasks) {
-            action.setInvoker(ActionInvoker.newBuilder().withHotKey(new KeyChain(List.of(stroke))).build());
-        }
-
-        return new HashSet<>(onKeyStrokePressedTasks);
+    public List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos) {
+        return matches(registry.onKeyStrokePressedTasks(), stroke, eventNanos);
     }
 
     @Override
-    public Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke) {
-        for (UserDefinedAction action : onKeyReleasedTasks) {
-            action.setInvoker(ActionInvoker.newBuilder().withHotKey(new KeyChain(List.of(stroke))).build());
+    public List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos) {
+        return matches(registry.onKeyReleasedTasks(), stroke, eventNanos);
+    }
+
+    private static List<ActivationMatch> matches(Set<UserDefinedAction> actions, ButtonStroke stroke, long eventNanos) {
+        if (actions.isEmpty()) {
+            return List.of();
         }
 
-        return new HashSet<>(onKeyReleasedTasks);
+        // The invoker is never modified once built, so all matches of this stroke can share it.
+        ActionInvoker invoker = ActionInvoker.newBuilder().withHotKey(new KeyChain(List.of(stroke))).build();
+        List<ActivationMatch> output = new ArrayList<>(actions.size());
+        for (UserDefinedAction action : actions) {
+            output.add(ActivationMatch.of(action, invoker, eventNanos));
+        }
+        return output;
     }
 
     @Override
@@ -53,34 +58,88 @@ public final class GlobalKeyActionManager extends KeyStrokeManager {
     }
 
     @Override
-    public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-        if (action.getActivation().getGlobalActivation().isOnKeyPressed()) {
-            onKeyStrokePressedTasks.add(action);
-        }
-        if (action.getActivation().getGlobalActivation().isOnKeyReleased()) {
-            onKeyReleasedTasks.add(action);
+    public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+        return new HashSet<>();
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+        return registerActions(List.of(action));
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> onKeyStrokePressedTasks = new HashSet<>(registry.onKeyStrokePressedTasks());
+        Set<UserDefinedAction> onKeyReleasedTasks = new HashSet<>(registry.onKeyReleasedTasks());
+        for (UserDefinedAction action : actions) {
+            if (action.getActivation().getGlobalActivation().isOnKeyPressed()) {
+                onKeyStrokePressedTasks.add(action);
+            }
+            if (action.getActivation().getGlobalActivation().isOnKeyReleased()) {
+                onKeyReleasedTasks.add(action);
+            }
         }
+        registry = new Registry(Set.copyOf(onKeyStrokePressedTasks), Set.copyOf(onKeyReleasedTasks));
         return new HashSet<>();
     }
 
     @Override
-    public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+    public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+        return unRegisterActions(List.of(action));
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> onKeyStrokePressedTasks = new HashSet<>(registry.onKeyStrokePressedTasks());
+        Set<UserDefinedAction> onKeyReleasedTasks = new HashSet<>(registry.onKeyReleasedTasks());
         Set<UserDefinedAction> removed = new HashSet<>();
-        for (Iterator<UserDefinedAction> it = onKeyStrokePressedTasks.iterator(); it.hasNext(); ) {
-            UserDefinedAction pressed = it.next();
-            if (pressed.equals(action)) {
-                removed.add(pressed);
-                it.remove();
+        for (UserDefinedAction action : actions) {
+            if (onKeyStrokePressedTasks.remove(action)) {
+                removed.add(action);
             }
-        }
-        for (Iterator<UserDefinedAction> it = onKeyReleasedTasks.iterator(); it.hasNext(); ) {
-            UserDefinedAction released = it.next();
-            if (released.equals(action)) {
-                removed.add(released);
-                it.remove();
+            if (onKeyReleasedTasks.remove(action)) {
+                removed.add(action);
             }
         }
+        registry = new Registry(Set.copyOf(onKeyStrokePressedTasks), Set.copyOf(onKeyReleasedTasks));
         return removed;
     }
 
+    @Override
+    public Set<UserDefinedAction> registeredActions() {
+        Registry current = registry;
+        Set<UserDefinedAction> output = new HashSet<>(current.onKeyStrokePressedTasks());
+        output.addAll(current.onKeyReleasedTasks());
+        return output;
+    }
+
+    @Override
+    public int interests() {
+        Registry current = registry;
+        int interests = EventClass.NONE;
+        if (!current.onKeyStrokePressedTasks().isEmpty()) {
+            interests |= EventClass.PRESSED;
+        }
+        if (!current.onKeyReleasedTasks().isEmpty()) {
+            interests |= EventClass.RELEASED;
+        }
+        return interests;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return registry;
+    }
+
+    @Override
+    public synchronized void restore(Snapshot snapshot) {
+        registry = (Registry) snapshot;
+    }
+
+    /**
+     * Immutable snapshot of the registered actions. Registration builds a new snapshot and swaps it in,
+     * so readers never lock.
+     */
+    private record Registry(Set<UserDefinedAction> onKeyStrokePressedTasks, Set<UserDefinedAction> onKeyReleasedTasks) implements Snapshot {
+    }
 }
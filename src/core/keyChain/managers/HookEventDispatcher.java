@@ -0,0 +1,197 @@
+package core.keyChain.managers;
+
+import org.simplenativehooks.events.NativeKeyEvent;
+import org.simplenativehooks.events.NativeMouseEvent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs activation matching on a dedicated thread instead of inside the native hook callbacks.
+ * <p>
+ * Hook callbacks {@link #publish(NativeKeyEvent)} into a {@link HookEventRing} and return immediately, so a slow
+ * matcher, precondition check or task start never delays the keystrokes of the user. The dispatcher thread drains
+ * the ring in order and parks when there is nothing to do.
+ * <p>
+ * Work that must not interleave with matching, such as swapping the registrations of several managers at once, can be
+ * run on the dispatcher thread between two events with {@link #runBetweenEvents(Runnable)}.
+ */
+final class HookEventDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(HookEventDispatcher.class.getName());
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final HookEventRing ring;
+    private final HookEventRing.SlotHandler handler;
+    private final HookEventRing.SlotHandler dispatch;
+    private final Queue<FutureTask<Void>> tasks;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean waiting;
+
+    HookEventDispatcher(HookEventRing.SlotHandler handler) {
+        this.ring = new HookEventRing(DEFAULT_CAPACITY);
+        this.handler = handler;
+        this.dispatch = this::dispatch;
+        this.tasks = new ConcurrentLinkedQueue<>();
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        Thread previous = thread;
+        if (previous == Thread.currentThread()) {
+            throw new IllegalStateException("Cannot restart the hook event dispatcher from its own thread.");
+        }
+        if (previous != null) {
+            // Stopped from its own thread, so the old consumer may still be draining. The ring has a single consumer.
+            joinUninterruptibly(previous);
+        }
+        running = true;
+        thread = new Thread(this::run, "Hook event dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the dispatcher thread and wait for it to exit, unless this is called from the dispatcher thread itself.
+     */
+    synchronized void stop() {
+        running = false;
+        Thread current = thread;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        if (current == Thread.currentThread()) {
+            // Cannot wait for ourselves. The next start() waits for this thread instead.
+            return;
+        }
+        joinUninterruptibly(current);
+        thread = null;
+    }
+
+    /**
+     * @return whether the event was queued, or false if it was dropped because the queue is full.
+     */
+    boolean publish(NativeKeyEvent event) {
+        return wakeIf(ring.publish(event));
+    }
+
+    /**
+     * @return whether the event was queued, or false if it was dropped because the queue is full.
+     */
+    boolean publish(NativeMouseEvent event) {
+        return wakeIf(ring.publish(event));
+    }
+
+    /**
+     * Run the task on the dispatcher thread between two events, and wait for it to finish.
+     * If the dispatcher is not running, or this is called from the dispatcher thread, the task runs right away.
+     */
+    void runBetweenEvents(Runnable task) {
+        Thread current = thread;
+        if (!running || current == null || current == Thread.currentThread()) {
+            task.run();
+            return;
+        }
+
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        tasks.add(future);
+        LockSupport.unpark(current);
+        if (!running) {
+            // Stopped before picking up the task. A task only ever runs once, so it is safe to race the dispatcher.
+            runTasks();
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    HookEventMetrics getMetrics() {
+        return new HookEventMetrics(ring.depth(), ring.capacity(), ring.dropped());
+    }
+
+    private boolean wakeIf(boolean published) {
+        if (published && waiting) {
+            Thread current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+        return published;
+    }
+
+    private void run() {
+        while (running) {
+            runTasks();
+            if (ring.drain(dispatch) > 0) {
+                continue;
+            }
+
+            // Publishers check this flag after publishing, so re-check the ring after setting it to not miss a wake up.
+            waiting = true;
+            if (running && ring.isEmpty() && tasks.isEmpty()) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+        runTasks();
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runTasks() {
+        for (FutureTask<Void> task = tasks.poll(); task != null; task = tasks.poll()) {
+            task.run();
+        }
+    }
+
+    private void dispatch(HookEventRing.Slot slot) {
+        try {
+            handler.handle(slot);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Exception when dispatching hook event.", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package core.keyChain.managers;
+
+/**
+ * Snapshot of the health of the queue between the native hook callbacks and the dispatcher thread. How long events
+ * wait in the queue is in the "Queue wait" stage of {@link GlobalEventsManager#getDispatchLatencies()}.
+ */
+public final class HookEventMetrics {
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long dropped;
+
+    HookEventMetrics(int queueDepth, int queueCapacity, long dropped) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.dropped = dropped;
+    }
+
+    /**
+     * @return number of events waiting to be dispatched.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return number of events dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return "HookEventMetrics{queueDepth=" + queueDepth + "/" + queueCapacity
+                + ", dropped=" + dropped + "}";
+    }
+}
@@ -0,0 +1,168 @@
+package core.keyChain.managers;
+
+import org.simplenativehooks.events.NativeKeyEvent;
+import org.simplenativehooks.events.NativeMouseEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded ring buffer carrying native hook events from the hook callbacks to the dispatcher thread.
+ * <p>
+ * All slots are allocated up front and reused. Publishing never blocks and never allocates: if the ring is full
+ * the event is dropped and counted. Each slot carries a sequence number telling whether it is free for the producer
+ * or ready for the consumer, so publishing is lock free. Keyboard and mouse hooks may call in from different threads,
+ * so claiming a slot is a compare and set rather than a plain increment. There must only be one consumer.
+ */
+final class HookEventRing {
+
+    /**
+     * A preallocated entry of the ring. Exactly one of the two events is set.
+     */
+    static final class Slot {
+        private NativeKeyEvent keyEvent;
+        private NativeMouseEvent mouseEvent;
+        private long publishedNanos;
+
+        NativeKeyEvent getKeyEvent() {
+            return keyEvent;
+        }
+
+        NativeMouseEvent getMouseEvent() {
+            return mouseEvent;
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the event was published.
+         */
+        long getPublishedNanos() {
+            return publishedNanos;
+        }
+
+        private void clear() {
+            keyEvent = null;
+            mouseEvent = null;
+        }
+    }
+
+    interface SlotHandler {
+        void handle(Slot slot);
+    }
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail;
+    private volatile long head;
+    private final LongAdder dropped;
+
+    /**
+     * @param capacity number of slots, must be a power of two.
+     */
+    HookEventRing(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two but got " + capacity + ".");
+        }
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.tail = new AtomicLong();
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * @return whether the event was published, or false if it was dropped because the ring is full.
+     */
+    boolean publish(NativeKeyEvent event) {
+        return publish(event, null);
+    }
+
+    /**
+     * @return whether the event was published, or false if it was dropped because the ring is full.
+     */
+    boolean publish(NativeMouseEvent event) {
+        return publish(null, event);
+    }
+
+    private boolean publish(NativeKeyEvent keyEvent, NativeMouseEvent mouseEvent) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                // Another producer claimed this position first.
+                position = tail.get();
+            }
+        }
+
+        int index = (int) position & mask;
+        Slot slot = slots[index];
+        slot.keyEvent = keyEvent;
+        slot.mouseEvent = mouseEvent;
+        slot.publishedNanos = System.nanoTime();
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Hand every published event to the handler in order, then free their slots.
+     * Must only be called from the consumer thread.
+     *
+     * @return number of events handled.
+     */
+    int drain(SlotHandler handler) {
+        int count = 0;
+        long position = head;
+        while (true) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+
+            Slot slot = slots[index];
+            try {
+                handler.handle(slot);
+            } finally {
+                slot.clear();
+                sequences.set(index, position + slots.length);
+                position++;
+                head = position;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * @return number of events published but not yet handled.
+     */
+    int depth() {
+        return (int) Math.max(0, Math.min(slots.length, tail.get() - head));
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
@@ -3,32 +3,31 @@ package core.keyChain.managers;
 import core.config.Config;
 import core.config.Constants;
 import core.keyChain.ActionInvoker;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ButtonStroke;
 import core.keyChain.ButtonStroke.Source;
 import core.keyChain.KeyChain;
+import core.keyChain.StrokeCode;
 import core.userDefinedTask.UserDefinedAction;
 
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public final class KeyChainManager extends KeyStrokeManager {
 
-    private final Set<ButtonStroke> pressedKeyboardKeys, pressedKeys;
-    private final Map<KeyChain, UserDefinedAction> keyChainActions;
-    private final KeyChain currentKeyboardChain;
-    private final KeyChain currentKeyChain;
-    private UserDefinedAction pendingAction;
+    private final PressedButtons pressedKeyboardKeys, pressedKeys;
+    private volatile Registry registry;
+    private final PackedKeyChain currentKeyboardChain;
+    private final PackedKeyChain currentKeyChain;
+    private ActivationMatch pendingMatch;
 
     public KeyChainManager(Config config) {
         super(config);
-        currentKeyboardChain = new KeyChain();
-        currentKeyChain = new KeyChain();
-        pressedKeyboardKeys = Collections.synchronizedSet(new HashSet<>());
-        pressedKeys = Collections.synchronizedSet(new HashSet<>());
-        keyChainActions = new HashMap<>();
-
+        currentKeyboardChain = new PackedKeyChain();
+        currentKeyChain = new PackedKeyChain();
+        pressedKeyboardKeys = new PressedButtons();
+        pressedKeys = new PressedButtons();
+        registry = Registry.of(new HashMap<>());
     }
 
     @Override
@@ -37,119 +36,270 @@ public final class KeyChainManager extends KeyStrokeManager {
     }
 
     @Override
-    public synchronized Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos) {
+        int code = StrokeCode.of(stroke);
         if (stroke.getSource() == Source.KEYBOARD) {
-            pressedKeyboardKeys.add(stroke);
+            pressedKeyboardKeys.add(code);
+            currentKeyboardChain.add(code);
         }
-        pressedKeys.add(stroke);
+        pressedKeys.add(code);
+        currentKeyChain.add(code);
 
-        if (stroke.getSource() == Source.KEYBOARD) {
-            currentKeyboardChain.addKeyStroke(stroke);
-        }
-        currentKeyChain.addKeyStroke(stroke);
-
-        UserDefinedAction action = null;
+        ActivationMatch match = null;
         if (!getConfig().isExecuteOnKeyReleased()) {
-            action = considerTaskExecution(stroke);
+            match = considerTaskExecution(stroke, eventNanos);
         }
 
-        return Stream.of(action).filter(Objects::nonNull).collect(Collectors.toSet());
+        return match == null ? List.of() : List.of(match);
     }
 
     @Override
-    public synchronized Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos) {
+        int code = StrokeCode.of(stroke);
         if (stroke.getSource() == Source.KEYBOARD) {
-            pressedKeyboardKeys.remove(stroke);
+            pressedKeyboardKeys.remove(code);
         }
-        pressedKeys.remove(stroke);
-        UserDefinedAction action = null;
+        pressedKeys.remove(code);
+        ActivationMatch match = null;
         if (getConfig().isExecuteOnKeyReleased()) {
-            action = considerTaskExecution(stroke);
+            match = considerTaskExecution(stroke, eventNanos);
         }
 
         if (stroke.getSource() == Source.KEYBOARD) {
-            currentKeyboardChain.clearKeys();
+            currentKeyboardChain.clear();
         }
-        currentKeyChain.clearKeys();
+        currentKeyChain.clear();
 
-        if (action != null) {
-            pendingAction = action;
+        if (match != null) {
+            pendingMatch = match;
         }
         if (pressedKeyboardKeys.isEmpty() || pressedKeys.isEmpty()) {
-            UserDefinedAction toExecute = pendingAction;
-            pendingAction = null;
-            return Stream.of(toExecute).filter(Objects::nonNull).collect(Collectors.toSet());
+            ActivationMatch toExecute = pendingMatch;
+            pendingMatch = null;
+            return toExecute == null ? List.of() : List.of(toExecute);
         }
 
-        return Collections.emptySet();
+        return List.of();
     }
 
     @Override
     public void clear() {
-        currentKeyboardChain.clearKeys();
-        currentKeyChain.clearKeys();
+        currentKeyboardChain.clear();
+        currentKeyChain.clear();
+        // Releases may have been missed while this manager was not receiving events.
+        pressedKeyboardKeys.clear();
+        pressedKeys.clear();
+        pendingMatch = null;
     }
 
     @Override
     public Set<UserDefinedAction> collision(Collection<ActionInvoker> activations) {
-        Set<KeyChain> keyChains = activations.stream().map(ActionInvoker::getHotkeys).flatMap(Set::stream).collect(Collectors.toSet());
+        return collision(registry.index(), activations);
+    }
 
-        Set<UserDefinedAction> collisions = new HashSet<>();
-        for (Entry<KeyChain, UserDefinedAction> entry : keyChainActions.entrySet()) {
-            KeyChain existing = entry.getKey();
-            UserDefinedAction action = entry.getValue();
+    @Override
+    public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> batch = new HashSet<>(actions);
+        PrefixTreeIndex<UserDefinedAction> index = PrefixTreeIndex.forStrokes();
+        for (HotkeyBinding binding : registry.bindings().values()) {
+            if (!batch.contains(binding.action())) {
+                index.add(PackedKeyChain.of(binding.chain()).toArray(), binding.action());
+            }
+        }
+        for (UserDefinedAction action : actions) {
+            for (KeyChain key : action.getActivation().getHotkeys()) {
+                index.add(PackedKeyChain.of(key).toArray(), action);
+            }
+        }
+        return BatchCollisions.find(actions, activation -> collision(index, List.of(activation)));
+    }
 
-            for (KeyChain key : keyChains) {
-                if (existing.collideWith(key)) {
-                    collisions.add(action);
-                }
+    private static Set<UserDefinedAction> collision(PrefixTreeIndex<UserDefinedAction> keyChainIndex, Collection<ActionInvoker> activations) {
+        Set<UserDefinedAction> collisions = new HashSet<>();
+        for (ActionInvoker activation : activations) {
+            for (KeyChain key : activation.getHotkeys()) {
+                // Two chains collide if one is a prefix of the other.
+                int[] codes = PackedKeyChain.of(key).toArray();
+                keyChainIndex.collectPrefixesOf(codes, collisions);
+                keyChainIndex.collectExtensionsOf(codes, collisions);
             }
         }
         return collisions;
     }
 
     @Override
-    public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+    public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
         Set<UserDefinedAction> toRemove = collision(action.getActivation());
-        toRemove.forEach(this::unRegisterAction);
+        Map<KeyChain, HotkeyBinding> bindings = new HashMap<>(registry.bindings());
+        toRemove.forEach(removed -> removeBindings(bindings, removed));
 
-        for (KeyChain key : action.getActivation().getHotkeys()) {
-            keyChainActions.put(key, action);
-        }
+        addBindings(bindings, action);
 
+        registry = Registry.of(bindings);
         return toRemove;
     }
 
     @Override
-    public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
-        return action.getActivation().getHotkeys().stream().map(keyChainActions::remove).filter(Objects::nonNull).collect(Collectors.toSet());
+    public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> toRemove = collision(actions.stream().map(UserDefinedAction::getActivation).toList());
+        Map<KeyChain, HotkeyBinding> bindings = new HashMap<>(registry.bindings());
+        toRemove.forEach(removed -> removeBindings(bindings, removed));
+
+        actions.forEach(action -> addBindings(bindings, action));
+
+        registry = Registry.of(bindings);
+        return toRemove;
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+        return unRegisterActions(List.of(action));
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+        Map<KeyChain, HotkeyBinding> bindings = new HashMap<>(registry.bindings());
+        Set<UserDefinedAction> removed = new HashSet<>();
+        actions.forEach(action -> removed.addAll(removeBindings(bindings, action)));
+        registry = Registry.of(bindings);
+        return removed;
+    }
+
+    @Override
+    public Set<UserDefinedAction> registeredActions() {
+        return registry.bindings().values().stream().map(HotkeyBinding::action).collect(Collectors.toSet());
+    }
+
+    @Override
+    public int interests() {
+        return registry.bindings().isEmpty() ? EventClass.NONE : EventClass.BUTTON_STROKES;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return registry;
+    }
+
+    @Override
+    public synchronized void restore(Snapshot snapshot) {
+        registry = (Registry) snapshot;
+    }
+
+    private static void addBindings(Map<KeyChain, HotkeyBinding> bindings, UserDefinedAction action) {
+        for (KeyChain key : action.getActivation().getHotkeys()) {
+            bindings.put(key, new HotkeyBinding(key, action, ActionInvoker.newBuilder().withHotKey(key.clone()).build()));
+        }
+    }
+
+    private static Set<UserDefinedAction> removeBindings(Map<KeyChain, HotkeyBinding> bindings, UserDefinedAction action) {
+        Set<UserDefinedAction> removed = new HashSet<>();
+        for (KeyChain key : action.getActivation().getHotkeys()) {
+            HotkeyBinding binding = bindings.remove(key);
+            if (binding != null) {
+                removed.add(binding.action());
+            }
+        }
+        return removed;
     }
 
     /**
      * Given a new key code coming in, consider start executing an action based on its hotkey
      *
-     * @param stroke new keyCode coming in
-     * @return if operation succeeded (even if no action has been invoked)
+     * @param stroke     new keyCode coming in
+     * @param eventNanos when the stroke was received
+     * @return the matched hotkey, or null if no action should be invoked
      */
-    private UserDefinedAction considerTaskExecution(ButtonStroke stroke) {
+    private ActivationMatch considerTaskExecution(ButtonStroke stroke, long eventNanos) {
         if (stroke.getKey() == Constants.HALT_TASK && getConfig().isEnabledHaltingKeyPressed()) {
             clear();
             return null;
         }
 
-        if (stroke.getSource() == Source.KEYBOARD) {
-            UserDefinedAction action = keyChainActions.get(currentKeyboardChain);
-            if (action != null) {
-                action.setInvoker(ActionInvoker.newBuilder().withHotKey(currentKeyboardChain.clone()).build());
+        HotkeyBinding binding = lookUp(stroke.getSource() == Source.KEYBOARD ? currentKeyboardChain : currentKeyChain);
+        if (binding == null) {
+            return null;
+        }
+        return ActivationMatch.of(binding.action(), binding.invoker(), eventNanos);
+    }
+
+    /**
+     * Look up the hotkey for the current chain. An exact match takes precedence. Otherwise each stroke of a hotkey
+     * registered with an unknown modifier matches the left or right variant of its key, independently of the other
+     * strokes, and the hotkey with the most exactly matching strokes wins.
+     */
+    private HotkeyBinding lookUp(PackedKeyChain chain) {
+        KeyChainTable<HotkeyBinding> keyChainTable = registry.table();
+        HotkeyBinding binding = keyChainTable.get(chain);
+        if (binding != null) {
+            return binding;
+        }
+        return keyChainTable.getGeneralized(chain);
+    }
+
+    /**
+     * A registered hotkey, with the invoker to report when it is activated built once at registration time.
+     */
+    private record HotkeyBinding(KeyChain chain, UserDefinedAction action, ActionInvoker invoker) {
+    }
+
+    /**
+     * Immutable snapshot of the registered hotkeys, indexed for dispatch and collision checks.
+     * Registration builds a new snapshot and swaps it in, so readers never lock.
+     */
+    private record Registry(Map<KeyChain, HotkeyBinding> bindings, KeyChainTable<HotkeyBinding> table, PrefixTreeIndex<UserDefinedAction> index) implements Snapshot {
+        private static Registry of(Map<KeyChain, HotkeyBinding> bindings) {
+            KeyChainTable<HotkeyBinding> table = new KeyChainTable<>();
+            PrefixTreeIndex<UserDefinedAction> index = PrefixTreeIndex.forStrokes();
+            for (HotkeyBinding binding : bindings.values()) {
+                PackedKeyChain packed = PackedKeyChain.of(binding.chain());
+                table.put(packed, binding);
+                index.add(packed.toArray(), binding.action());
             }
-            return action;
+            return new Registry(Collections.unmodifiableMap(bindings), table, index);
         }
+    }
+
+    /**
+     * Identities of the buttons currently held down. Only a handful of buttons are ever held at the same time,
+     * so a linear scan over a small array is enough.
+     */
+    private static final class PressedButtons {
+        private int[] codes = new int[8];
+        private int size;
 
-        UserDefinedAction action = keyChainActions.get(currentKeyChain);
-        if (action != null) {
-            action.setInvoker(ActionInvoker.newBuilder().withHotKey(currentKeyChain.clone()).build());
+        private void add(int code) {
+            int identity = StrokeCode.identity(code);
+            if (indexOf(identity) >= 0) {
+                return;
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = identity;
         }
 
-        return action;
+        private void remove(int code) {
+            int index = indexOf(StrokeCode.identity(code));
+            if (index >= 0) {
+                codes[index] = codes[--size];
+            }
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private int indexOf(int identity) {
+            for (int i = 0; i < size; i++) {
+                if (codes[i] == identity) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 }
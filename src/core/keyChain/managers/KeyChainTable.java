@@ -0,0 +1,168 @@
+package core.keyChain.managers;
+
+import core.keyChain.KeyStroke;
+import core.keyChain.StrokeCode;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from {@link PackedKeyChain}s to values, used to look up hotkeys on every stroke.
+ * <p>
+ * The table is filled once when a registry snapshot is built, and lookups do not allocate.
+ * Besides exact lookups, a chain can be looked up with each stroke generalized independently: a stroke registered
+ * with {@link KeyStroke.Modifier#KEY_MODIFIER_UNKNOWN} matches the left or right variant of its key, while a stroke
+ * registered with an explicit side only matches that side. So a hotkey registered as e.g. CTRL + C is found when the
+ * left or right control key is held, and LEFT CTRL + SHIFT + C is found with either shift key.
+ *
+ * @param <V> value associated with each chain.
+ */
+final class KeyChainTable<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Indexed by the hash of the exact codes. Each chain appears once.
+    private final Slots exact;
+    // Indexed by the hash of the codes with every modifier generalized, so that all chains a lookup may match
+    // are probed from the same slot. Each chain appears once, but several may share a hash.
+    private final Slots generalized;
+
+    KeyChainTable() {
+        exact = new Slots();
+        generalized = new Slots();
+    }
+
+    /**
+     * @return the value registered for exactly this chain, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    V get(PackedKeyChain chain) {
+        int hash = chain.hash();
+        int mask = exact.keys.length - 1;
+        for (int i = spread(hash) & mask; exact.keys[i] != null; i = (i + 1) & mask) {
+            if (exact.hashes[i] == hash && sameCodes(exact.keys[i], chain)) {
+                return (V) exact.values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value registered for a chain whose strokes each either equal the stroke of this chain or are
+     * registered with {@link KeyStroke.Modifier#KEY_MODIFIER_UNKNOWN} for the same key, or null if there is none.
+     * If several match, the one with the most strokes matching exactly wins.
+     */
+    @SuppressWarnings("unchecked")
+    V getGeneralized(PackedKeyChain chain) {
+        int hash = chain.generalizedHash();
+        int mask = generalized.keys.length - 1;
+        Object best = null;
+        int bestExact = -1;
+        for (int i = spread(hash) & mask; generalized.keys[i] != null; i = (i + 1) & mask) {
+            if (generalized.hashes[i] != hash) {
+                continue;
+            }
+            int exactCount = generalizedMatch(generalized.keys[i], chain);
+            if (exactCount > bestExact) {
+                best = generalized.values[i];
+                bestExact = exactCount;
+            }
+        }
+        return (V) best;
+    }
+
+    void put(PackedKeyChain chain, V value) {
+        int[] key = chain.toArray();
+        exact.put(key, chain.hash(), value);
+        generalized.put(key, chain.generalizedHash(), value);
+    }
+
+    private static boolean sameCodes(int[] key, PackedKeyChain chain) {
+        if (key.length != chain.size()) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != chain.code(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of strokes of the registered key equal to the strokes of the chain, or -1 if a stroke matches
+     * neither exactly nor through an unknown modifier.
+     */
+    private static int generalizedMatch(int[] key, PackedKeyChain chain) {
+        if (key.length != chain.size()) {
+            return -1;
+        }
+        int exactCount = 0;
+        for (int i = 0; i < key.length; i++) {
+            int code = chain.code(i);
+            if (key[i] == code) {
+                exactCount++;
+            } else if (key[i] != StrokeCode.generalize(code)) {
+                return -1;
+            }
+        }
+        return exactCount;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Open addressing slots of keys, their hashes and values.
+     */
+    private static final class Slots {
+        private int[][] keys;
+        private int[] hashes;
+        private Object[] values;
+        private int size;
+
+        private Slots() {
+            keys = new int[DEFAULT_CAPACITY][];
+            hashes = new int[DEFAULT_CAPACITY];
+            values = new Object[DEFAULT_CAPACITY];
+        }
+
+        private void put(int[] key, int hash, Object value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            insert(key, hash, value);
+        }
+
+        private void insert(int[] key, int hash, Object value) {
+            int mask = keys.length - 1;
+            int index = spread(hash) & mask;
+            while (keys[index] != null) {
+                if (hashes[index] == hash && Arrays.equals(keys[index], key)) {
+                    values[index] = value;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            hashes[index] = hash;
+            values[index] = value;
+            size++;
+        }
+
+        private void grow() {
+            int[][] oldKeys = keys;
+            int[] oldHashes = hashes;
+            Object[] oldValues = values;
+            keys = new int[oldKeys.length * 2][];
+            hashes = new int[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldHashes[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
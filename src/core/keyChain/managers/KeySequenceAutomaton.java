@@ -0,0 +1,177 @@
+package core.keyChain.managers;
+
+import core.keyChain.RollingKeySeries;
+import core.keyChain.StrokeCode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Matches incoming strokes against all registered key sequences at once.
+ * <p>
+ * This is an Aho-Corasick automaton over {@link StrokeCode}s. Since a stroke with unknown modifier matches
+ * both the left and right variants of a key, several trie nodes can be reached by the same input.
+ * The automaton is therefore determinized when built: each state is the set of trie nodes spelling a suffix
+ * of the strokes seen so far. Advancing on a new stroke is a single table lookup, regardless of how many
+ * sequences are registered.
+ *
+ * @param <T> value associated with each registered sequence.
+ */
+final class KeySequenceAutomaton<T> {
+
+    /**
+     * State before any stroke is seen. Also the state reached on any stroke that does not continue a sequence.
+     */
+    static final int START = 0;
+
+    private final TransitionTable transitions;
+    private final List<List<T>> outputs;
+
+    private KeySequenceAutomaton(TransitionTable transitions, List<List<T>> outputs) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    static <T> Builder<T> newBuilder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @param state current state.
+     * @param code  {@link StrokeCode} of the incoming stroke.
+     * @return the state after seeing the stroke.
+     */
+    int next(int state, int code) {
+        return transitions.get(state, StrokeCode.identity(code), START);
+    }
+
+    /**
+     * Feed a series of strokes starting from {@link #START}.
+     *
+     * @return the state after seeing all strokes.
+     */
+    int run(RollingKeySeries strokes) {
+        int state = START;
+        for (int i = 0; i < strokes.getSize(); i++) {
+            state = next(state, strokes.getCode(i));
+        }
+        return state;
+    }
+
+    /**
+     * @return values of all sequences ending at the last stroke that led to this state.
+     */
+    List<T> matches(int state) {
+        return outputs.get(state);
+    }
+
+    static final class Builder<T> {
+        private final List<Map<Integer, Integer>> children;
+        private final List<List<T>> terminals;
+
+        private Builder() {
+            children = new ArrayList<>();
+            terminals = new ArrayList<>();
+            newNode();
+        }
+
+        /**
+         * @param pattern {@link StrokeCode}s of the sequence in order.
+         * @param value   value to report when the sequence is matched.
+         */
+        Builder<T> add(int[] pattern, T value) {
+            int node = 0;
+            for (int code : pattern) {
+                int symbol = StrokeCode.identity(code);
+                Integer child = children.get(node).get(symbol);
+                if (child == null) {
+                    child = newNode();
+                    children.get(node).put(symbol, child);
+                }
+                node = child;
+            }
+            terminals.get(node).add(value);
+            return this;
+        }
+
+        KeySequenceAutomaton<T> build() {
+            Set<Integer> alphabet = new LinkedHashSet<>();
+            int[] equivalents = new int[StrokeCode.MAX_EQUIVALENTS];
+            for (Map<Integer, Integer> nodeChildren : children) {
+                for (int symbol : nodeChildren.keySet()) {
+                    int count = StrokeCode.equivalents(symbol, equivalents);
+                    for (int i = 0; i < count; i++) {
+                        alphabet.add(equivalents[i]);
+                    }
+                }
+            }
+
+            TransitionTable transitions = new TransitionTable();
+            List<List<T>> outputs = new ArrayList<>();
+            List<List<Integer>> states = new ArrayList<>();
+            Map<List<Integer>, Integer> stateIds = new HashMap<>();
+            Queue<Integer> pending = new ArrayDeque<>();
+
+            List<Integer> start = List.of(0);
+            stateIds.put(start, START);
+            states.add(start);
+            outputs.add(outputOf(start));
+            pending.add(START);
+
+            while (!pending.isEmpty()) {
+                int state = pending.poll();
+                List<Integer> nodes = states.get(state);
+                for (int symbol : alphabet) {
+                    TreeSet<Integer> nextNodes = new TreeSet<>();
+                    nextNodes.add(0);
+                    int count = StrokeCode.equivalents(symbol, equivalents);
+                    for (int node : nodes) {
+                        for (int i = 0; i < count; i++) {
+                            Integer child = children.get(node).get(equivalents[i]);
+                            if (child != null) {
+                                nextNodes.add(child);
+                            }
+                        }
+                    }
+
+                    List<Integer> key = new ArrayList<>(nextNodes);
+                    Integer target = stateIds.get(key);
+                    if (target == null) {
+                        target = states.size();
+                        stateIds.put(key, target);
+                        states.add(key);
+                        outputs.add(outputOf(key));
+                        pending.add(target);
+                    }
+                    if (target != START) {
+                        transitions.put(state, symbol, target);
+                    }
+                }
+            }
+
+            return new KeySequenceAutomaton<>(transitions, outputs);
+        }
+
+        private List<T> outputOf(List<Integer> nodes) {
+            List<T> output = new ArrayList<>();
+            for (int node : nodes) {
+                output.addAll(terminals.get(node));
+            }
+            return output.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(output);
+        }
+
+        private int newNode() {
+            children.add(new HashMap<>());
+            terminals.add(new ArrayList<>());
+            return children.size() - 1;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package core.keyChain.managers;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -11,24 +10,30 @@ import java.util.Set;
 import core.config.Config;
 import core.config.Constants;
 import core.keyChain.ActionInvoker;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ButtonStroke;
 import core.keyChain.ButtonStroke.Source;
 import core.keyChain.KeySequence;
 import core.keyChain.RollingKeySeries;
+import core.keyChain.StrokeCode;
 import core.userDefinedTask.UserDefinedAction;
 
 public final class KeySequenceManager extends KeyStrokeManager {
 
 	private final RollingKeySeries currentKeyboardRollingKeySeries;
 	private final RollingKeySeries currentRollingKeySeries;
-	private final List<UserDefinedAction> registeredActions;
+	private volatile Registry registry;
+	// Dispatch state, only accessed from the dispatching thread.
+	private KeySequenceAutomaton<SequenceBinding> automaton; // Automaton the states below belong to.
+	private int keyboardState, state; // Automaton states reached by the two rolling series above.
 
 	public KeySequenceManager(Config config) {
 		super(config);
 
-		this.currentKeyboardRollingKeySeries = new RollingKeySeries();
-		this.currentRollingKeySeries = new RollingKeySeries();
-		this.registeredActions = new ArrayList<>();
+		this.currentKeyboardRollingKeySeries = new RollingKeySeries(config.getKeySequenceWindow());
+		this.currentRollingKeySeries = new RollingKeySeries(config.getKeySequenceWindow());
+		this.registry = Registry.of(List.of());
+		this.automaton = registry.automaton();
 	}
 
 	@Override
@@ -37,108 +42,189 @@ public final class KeySequenceManager extends KeyStrokeManager {
 	}
 
 	@Override
-    public synchronized Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos) {
+		syncAutomaton();
+		int code = StrokeCode.of(stroke);
 		if (stroke.getSource() == Source.KEYBOARD) {
-			currentKeyboardRollingKeySeries.addKeyStroke(stroke);
+			currentKeyboardRollingKeySeries.addCode(code);
+			keyboardState = automaton.next(keyboardState, code);
 		}
-		currentRollingKeySeries.addKeyStroke(stroke);
+		currentRollingKeySeries.addCode(code);
+		state = automaton.next(state, code);
 		if (!getConfig().isExecuteOnKeyReleased()) {
-			return considerTaskExecution(stroke);
+			return considerTaskExecution(stroke, eventNanos);
 		}
 
-		return Collections.emptySet();
+		return List.of();
 	}
 
 	@Override
-    public synchronized Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos) {
+		syncAutomaton();
 		if (getConfig().isExecuteOnKeyReleased()) {
-			return considerTaskExecution(stroke);
+			return considerTaskExecution(stroke, eventNanos);
 		}
 
-		return Collections.emptySet();
+		return List.of();
 	}
 
 	/**
 	 * Given a new key stroke coming in, consider start executing actions based on their activations.
-	 * @return set of actions to execute.
+	 * @return matches of the actions to execute.
 	 */
-	private Set<UserDefinedAction> considerTaskExecution(ButtonStroke key) {
+	private List<ActivationMatch> considerTaskExecution(ButtonStroke key, long eventNanos) {
 		if (key.getKey() == Constants.HALT_TASK && getConfig().isEnabledHaltingKeyPressed()) {
 			clear();
-			return Collections.emptySet();
+			return List.of();
 		}
 
 		if (key.getSource() == Source.KEYBOARD && key.equals(currentKeyboardRollingKeySeries.getLast())) {
-			Set<UserDefinedAction> toExecute = tasksToExecute(currentKeyboardRollingKeySeries);
+			List<ActivationMatch> toExecute = tasksToExecute(keyboardState, eventNanos);
 			if (!toExecute.isEmpty()) {
 				return toExecute;
 			}
 		}
 
 		if (key.equals(currentRollingKeySeries.getLast())) {
-			return tasksToExecute(currentRollingKeySeries);
+			return tasksToExecute(state, eventNanos);
 		}
-		return Collections.emptySet();
+		return List.of();
 	}
 
-	private Set<UserDefinedAction> tasksToExecute(RollingKeySeries keySeries) {
-		Set<UserDefinedAction> output = new HashSet<>();
-		for (UserDefinedAction action : registeredActions) {
-			ActionInvoker activation = action.getActivation();
-			for (KeySequence sequence : activation.getKeySequences()) {
-				if (keySeries.collideWith(sequence)) {
-					action.setInvoker(ActionInvoker.newBuilder().withKeySequence(sequence.clone()).build());
-					output.add(action);
-				}
-			}
+	private List<ActivationMatch> tasksToExecute(int automatonState, long eventNanos) {
+		List<SequenceBinding> matches = automaton.matches(automatonState);
+		if (matches.isEmpty()) {
+			return List.of();
 		}
 
+		List<ActivationMatch> output = new ArrayList<>();
+		Set<UserDefinedAction> matched = new HashSet<>();
+		for (SequenceBinding match : matches) {
+			if (matched.add(match.action())) {
+				output.add(ActivationMatch.of(match.action(), ActionInvoker.newBuilder().withKeySequence(match.sequence().clone()).build(), eventNanos));
+			}
+		}
 		return output;
 	}
 
 	@Override
-    public synchronized void clear() {
+    public void clear() {
 		currentKeyboardRollingKeySeries.clearKeys();
 		currentRollingKeySeries.clearKeys();
+		keyboardState = KeySequenceAutomaton.START;
+		state = KeySequenceAutomaton.START;
 	}
 
+	/**
+	 * Two sequences collide if one appears inside the other. Registered sequences appearing inside the
+	 * activation are found by running the activation through the automaton, and registered sequences
+	 * containing the activation are found in the suffix index.
+	 */
 	@Override
 	public Set<UserDefinedAction> collision(Collection<ActionInvoker> activations) {
+		return collision(registry, activations);
+	}
+
+	@Override
+	public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> batch = new HashSet<>(actions);
+		List<UserDefinedAction> combined = new ArrayList<>();
+		for (UserDefinedAction existing : registry.actions()) {
+			if (!batch.contains(existing)) {
+				combined.add(existing);
+			}
+		}
+		combined.addAll(actions);
+		Registry current = Registry.of(combined);
+		return BatchCollisions.find(actions, activation -> collision(current, List.of(activation)));
+	}
+
+	private static Set<UserDefinedAction> collision(Registry current, Collection<ActionInvoker> activations) {
 		Set<UserDefinedAction> output = new HashSet<>();
 		for (ActionInvoker activation : activations) {
-			for (UserDefinedAction action : registeredActions) {
-				if (collisionWithAction(action, activation)) {
-					output.add(action);
+			for (KeySequence sequence : activation.getKeySequences()) {
+				int[] codes = codesOf(sequence);
+				int automatonState = KeySequenceAutomaton.START;
+				addActions(current.automaton().matches(automatonState), output);
+				for (int code : codes) {
+					automatonState = current.automaton().next(automatonState, code);
+					addActions(current.automaton().matches(automatonState), output);
 				}
+				current.suffixIndex().collectExtensionsOf(codes, output);
 			}
 		}
 		return output;
 	}
 
-	private boolean collisionWithAction(UserDefinedAction action, ActionInvoker activation) {
-		for (KeySequence sequence : activation.getKeySequences()) {
-			for (KeySequence actionSequence : action.getActivation().getKeySequences()) {
-				if (actionSequence.collideWith(sequence)) {
-					return true;
-				}
-			}
+	private static void addActions(List<SequenceBinding> bindings, Set<UserDefinedAction> output) {
+		for (SequenceBinding binding : bindings) {
+			output.add(binding.action());
 		}
-		return false;
+	}
+
+	private static int[] codesOf(KeySequence sequence) {
+		return sequence.getButtonStrokes().stream().mapToInt(StrokeCode::of).toArray();
 	}
 
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+	public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
 		Set<UserDefinedAction> toRemove = collision(action.getActivation());
-		toRemove.forEach(this::unRegisterAction);
+		List<UserDefinedAction> actions = new ArrayList<>(registry.actions());
+		toRemove.forEach(removed -> removeAction(actions, removed));
+
+		actions.add(action);
+		registry = Registry.of(actions);
+		return toRemove;
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> toRemove = collision(actions.stream().map(UserDefinedAction::getActivation).toList());
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
+		toRemove.forEach(removed -> removeAction(updated, removed));
 
-		registeredActions.add(action);
+		updated.addAll(actions);
+		registry = Registry.of(updated);
 		return toRemove;
 	}
 
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+	public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+		return unRegisterActions(List.of(action));
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
+		Set<UserDefinedAction> output = new HashSet<>();
+		actions.forEach(action -> output.addAll(removeAction(updated, action)));
+		registry = Registry.of(updated);
+		return output;
+	}
+
+	@Override
+	public Set<UserDefinedAction> registeredActions() {
+		return new HashSet<>(registry.actions());
+	}
+
+	@Override
+	public int interests() {
+		return registry.actions().isEmpty() ? EventClass.NONE : EventClass.BUTTON_STROKES;
+	}
+
+	@Override
+	public Snapshot snapshot() {
+		return registry;
+	}
+
+	@Override
+	public synchronized void restore(Snapshot snapshot) {
+		registry = (Registry) snapshot;
+	}
+
+	private static Set<UserDefinedAction> removeAction(List<UserDefinedAction> actions, UserDefinedAction action) {
 		Set<UserDefinedAction> output = new HashSet<>();
-		for (Iterator<UserDefinedAction> iterator = registeredActions.iterator(); iterator.hasNext();) {
+		for (Iterator<UserDefinedAction> iterator = actions.iterator(); iterator.hasNext();) {
 			UserDefinedAction existing = iterator.next();
 			if (existing.equals(action)) {
 				output.add(existing);
@@ -147,4 +233,40 @@ public final class KeySequenceManager extends KeyStrokeManager {
 		}
 		return output;
 	}
+
+	/**
+	 * Pick up the latest registry. If it changed, replay the rolling series through its automaton
+	 * so that sequences partially typed before the change can still complete.
+	 */
+	private void syncAutomaton() {
+		KeySequenceAutomaton<SequenceBinding> latest = registry.automaton();
+		if (latest == automaton) {
+			return;
+		}
+		automaton = latest;
+		keyboardState = automaton.run(currentKeyboardRollingKeySeries);
+		state = automaton.run(currentRollingKeySeries);
+	}
+
+	private record SequenceBinding(KeySequence sequence, UserDefinedAction action) {
+	}
+
+	/**
+	 * Immutable snapshot of the registered actions, compiled into an automaton for dispatch and a suffix index
+	 * for collision checks. Registration builds a new snapshot and swaps it in, so readers never lock.
+	 */
+	private record Registry(List<UserDefinedAction> actions, KeySequenceAutomaton<SequenceBinding> automaton, PrefixTreeIndex<UserDefinedAction> suffixIndex) implements Snapshot {
+		private static Registry of(List<UserDefinedAction> actions) {
+			KeySequenceAutomaton.Builder<SequenceBinding> builder = KeySequenceAutomaton.newBuilder();
+			PrefixTreeIndex<UserDefinedAction> index = PrefixTreeIndex.forStrokes();
+			for (UserDefinedAction action : actions) {
+				for (KeySequence sequence : action.getActivation().getKeySequences()) {
+					int[] codes = codesOf(sequence);
+					builder.add(codes, new SequenceBinding(sequence, action));
+					index.addSuffixes(codes, action);
+				}
+			}
+			return new Registry(List.copyOf(actions), builder.build(), index);
+		}
+	}
 }
@@ -21,11 +21,10 @@ package core.keyChain.managers;
 import core.config.Config;
 import core.keyChain.ActivationEvent;
 import core.keyChain.ActivationEvent.EventType;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ButtonStroke;
-import core.userDefinedTask.UserDefinedAction;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 public abstract class KeyStrokeManager implements ActivationEventManager {
     private final Config config;
@@ -39,16 +38,16 @@ public abstract class KeyStrokeManager implements ActivationEventManager {
     }
 
     @Override
-    public final Set<UserDefinedAction> onActivationEvent(ActivationEvent event) {
+    public final List<ActivationMatch> onActivationEvent(ActivationEvent event) {
         if (event.getType() != EventType.BUTTON_STROKE) {
-            return new HashSet<>();
+            return List.of();
         }
 
         ButtonStroke buttonStroke = event.getButtonStroke();
         if (buttonStroke.isPressed()) {
-            return onButtonStrokePressed(buttonStroke);
+            return onButtonStrokePressed(buttonStroke, event.getNanos());
         }
-        return onButtonStrokeReleased(buttonStroke);
+        return onButtonStrokeReleased(buttonStroke, event.getNanos());
     }
 
     @Override
@@ -56,7 +55,13 @@ public abstract class KeyStrokeManager implements ActivationEventManager {
         //Nothing to do.
     }
 
-    protected abstract Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke);
+    /**
+     * @param eventNanos {@link System#nanoTime()} when the stroke was received, to stamp the matches with.
+     */
+    protected abstract List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos);
 
-    protected abstract Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke);
+    /**
+     * @param eventNanos {@link System#nanoTime()} when the stroke was received, to stamp the matches with.
+     */
+    protected abstract List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos);
 }
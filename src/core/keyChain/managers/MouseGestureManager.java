@@ -20,8 +20,11 @@ package core.keyChain.managers;
 
 import core.config.Config;
 import core.keyChain.ActionInvoker;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ButtonStroke;
 import core.keyChain.MouseGesture;
+import core.keyChain.mouseGestureRecognition.GesturePointBuffer;
+import core.keyChain.mouseGestureRecognition.GestureRecognizer;
 import core.keyChain.mouseGestureRecognition.MouseGestureClassifier;
 import core.userDefinedTask.UserDefinedAction;
 import globalListener.GlobalListenerFactory;
@@ -29,12 +32,10 @@ import org.simplenativehooks.events.NativeMouseEvent;
 import org.simplenativehooks.listeners.AbstractGlobalMouseListener;
 import org.simplenativehooks.utilities.Function;
 
-import java.awt.*;
 import java.util.*;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -47,17 +48,21 @@ public final class MouseGestureManager extends KeyStrokeManager {
 
     private static final int MAX_COORDINATES_COUNT = 1000;
 
-    private final MouseGestureClassifier mouseGestureRecognizer;
-    private final Map<MouseGesture, UserDefinedAction> actionMap;
+    /**
+     * Tried in order until one recognizes the gesture, so that custom gestures take precedence over built in ones.
+     */
+    private final List<GestureRecognizer> recognizers;
+    private volatile Registry registry;
     private final AbstractGlobalMouseListener mouseListener;
-    private final Queue<Point> coordinates;
-    private boolean enabled;
+    private final GesturePointBuffer coordinates;
+    private volatile boolean recording; // Points are only captured while the gesture button is held.
+    private volatile Predicate<GesturePointBuffer> capture; // If set, the next recording is stored with it instead of being recognized.
 
     public MouseGestureManager(Config config) {
         super(config);
-        mouseGestureRecognizer = new MouseGestureClassifier();
-        actionMap = new HashMap<>();
-        coordinates = new ConcurrentLinkedQueue<>();
+        recognizers = List.of(config.getCustomGestures(), new MouseGestureClassifier());
+        registry = new Registry(Map.of());
+        coordinates = new GesturePointBuffer(MAX_COORDINATES_COUNT);
         mouseListener = GlobalListenerFactory.createGlobalMouseListener();
     }
 
@@ -69,10 +74,13 @@ public final class MouseGestureManager extends KeyStrokeManager {
         mouseListener.setMouseMoved(new Function<>() {
             @Override
             public Boolean apply(NativeMouseEvent d) {
-                LOGGER.finest("Mouse moved to " + d.getX() + ", " + d.getY() + ".");
-                if (enabled && coordinates.size() < MAX_COORDINATES_COUNT) {
-                    coordinates.add(new Point(d.getX(), d.getY()));
+                if (!recording) {
+                    return true;
                 }
+                if (LOGGER.isLoggable(Level.FINEST)) {
+                    LOGGER.finest("Mouse moved to " + d.getX() + ", " + d.getY() + ".");
+                }
+                coordinates.add(d.getX(), d.getY(), System.nanoTime());
                 return true;
             }
         });
@@ -80,24 +88,24 @@ public final class MouseGestureManager extends KeyStrokeManager {
     }
 
     @Override
-    public Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos) {
         if (getConfig().getMOUSE_GESTURE().getButtonStrokes().contains(stroke)) {
             startRecording();
         }
-        return Collections.emptySet();
+        return List.of();
     }
 
     @Override
-    public Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos) {
         if (getConfig().getMOUSE_GESTURE().getButtonStrokes().contains(stroke)) {
-            return finishRecording();
+            return finishRecording(eventNanos);
         }
-        return Collections.emptySet();
+        return List.of();
     }
 
     @Override
     public void clear() {
-        enabled = false;
+        recording = false;
         coordinates.clear();
     }
 
@@ -108,14 +116,39 @@ public final class MouseGestureManager extends KeyStrokeManager {
      */
     @Override
     public Set<UserDefinedAction> collision(Collection<ActionInvoker> activations) {
+        Map<MouseGesture, UserDefinedAction> registered = registry.actionMap();
         Set<MouseGesture> gestures = activations.stream().map(ActionInvoker::getMouseGestures).flatMap(Set::stream).collect(Collectors.toSet());
 
-        Set<MouseGesture> collisions = new HashSet<>(actionMap.keySet());
+        Set<MouseGesture> collisions = new HashSet<>(registered.keySet());
         collisions.retainAll(gestures);
 
         Set<UserDefinedAction> output = new HashSet<>();
         for (MouseGesture collision : collisions) {
-            output.add(actionMap.get(collision));
+            output.add(registered.get(collision));
+        }
+        return output;
+    }
+
+    @Override
+    public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+        Set<UserDefinedAction> batch = new HashSet<>(actions);
+        Map<MouseGesture, Set<UserDefinedAction>> combined = new HashMap<>();
+        registry.actionMap().forEach((gesture, action) -> {
+            if (!batch.contains(action)) {
+                combined.computeIfAbsent(gesture, g -> new HashSet<>()).add(action);
+            }
+        });
+        for (UserDefinedAction action : actions) {
+            for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
+                combined.computeIfAbsent(gesture, g -> new HashSet<>()).add(action);
+            }
+        }
+
+        Set<UserDefinedAction> output = new HashSet<>();
+        for (Set<UserDefinedAction> sameGesture : combined.values()) {
+            if (sameGesture.size() > 1) {
+                output.addAll(sameGesture);
+            }
         }
         return output;
     }
@@ -127,17 +160,26 @@ public final class MouseGestureManager extends KeyStrokeManager {
      * @return the gestures that are collided
      */
     @Override
-    public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+    public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+        return registerActions(List.of(action));
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+        Map<MouseGesture, UserDefinedAction> updated = new HashMap<>(registry.actionMap());
         Set<UserDefinedAction> collisions = new HashSet<>();
-        for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
-            UserDefinedAction collided = actionMap.get(gesture);
-            if (collided != null) {
-                collisions.add(collided);
-            }
+        for (UserDefinedAction action : actions) {
+            for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
+                UserDefinedAction collided = updated.get(gesture);
+                if (collided != null) {
+                    collisions.add(collided);
+                }
 
-            actionMap.put(gesture, action);
+                updated.put(gesture, action);
+            }
         }
 
+        registry = new Registry(Map.copyOf(updated));
         return collisions;
     }
 
@@ -148,61 +190,140 @@ public final class MouseGestureManager extends KeyStrokeManager {
      * @return action (if exist) associated with this gesture
      */
     @Override
-    public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+    public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+        return unRegisterActions(List.of(action));
+    }
+
+    @Override
+    public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+        Map<MouseGesture, UserDefinedAction> updated = new HashMap<>(registry.actionMap());
         Set<UserDefinedAction> output = new HashSet<>();
-        for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
-            UserDefinedAction removed = actionMap.remove(gesture);
-            if (removed != null) {
-                output.add(removed);
+        for (UserDefinedAction action : actions) {
+            for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
+                UserDefinedAction removed = updated.remove(gesture);
+                if (removed != null) {
+                    output.add(removed);
+                }
             }
         }
 
+        registry = new Registry(Map.copyOf(updated));
         return output;
     }
 
+    @Override
+    public Set<UserDefinedAction> registeredActions() {
+        return new HashSet<>(registry.actionMap().values());
+    }
+
+    @Override
+    public int interests() {
+        return registry.actionMap().isEmpty() && capture == null ? EventClass.NONE : EventClass.BUTTON_STROKES;
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return registry;
+    }
+
+    @Override
+    public synchronized void restore(Snapshot snapshot) {
+        registry = (Registry) snapshot;
+    }
+
+    /**
+     * Store the next recorded gesture as a template of a custom gesture instead of recognizing it.
+     * Recording more templates for the same name makes the gesture recognized more reliably. The config is saved
+     * once the template is stored, the same as when a custom gesture is removed.
+     *
+     * @param name name of the custom gesture.
+     */
+    public synchronized void recordTemplate(String name) {
+        capture = points -> {
+            if (!getConfig().getCustomGestures().addTemplate(name, points)) {
+                return false;
+            }
+            // Captures run on the hook event dispatcher thread, which must not wait for the disk.
+            Thread.ofVirtual().name("Save custom gesture").start(() -> {
+                if (!getConfig().save()) {
+                    LOGGER.warning("Unable to save config after recording custom gesture '" + name + "'.");
+                }
+            });
+            return true;
+        };
+    }
+
+    /**
+     * Store the next recorded gesture as a sample to train the gesture model with, instead of recognizing it.
+     *
+     * @param label the built in gesture the user is about to draw.
+     */
+    public synchronized void recordTrainingSample(MouseGesture label) {
+        capture = points -> getConfig().getMouseGestureTrainingSamples().add(label.getName(), points);
+    }
+
     /**
      * Start recording the gesture
      */
     private synchronized void startRecording() {
-        if (enabled) {
+        if (recording) {
             return;
         }
         coordinates.clear();
-        enabled = true;
+        recording = true;
     }
 
     /**
      * Finish recording the gesture. Now decode it.
      */
-    private synchronized Set<UserDefinedAction> finishRecording() {
-        enabled = false;
+    private synchronized List<ActivationMatch> finishRecording(long eventNanos) {
+        recording = false;
+        // The mouse hook may still be adding a point, so fix the stroke before reading it.
+        coordinates.freeze();
+        Predicate<GesturePointBuffer> store = capture;
+        if (store != null) {
+            capture = null;
+            if (!store.test(coordinates)) {
+                LOGGER.warning("Recorded gesture is too short to be stored.");
+            }
+            return List.of();
+        }
+
         try {
             MouseGesture gesture = processCurrentData();
             /*if (MouseGesture.IGNORED_CLASSIFICATIONS.contains(gesture)) {
                 return Collections.emptySet();
             }*/
 
-            UserDefinedAction task = actionMap.get(gesture);
+            if (gesture == null) {
+                return List.of();
+            }
+
+            UserDefinedAction task = registry.actionMap().get(gesture);
             if (task == null) {
-                return Collections.emptySet();
+                return List.of();
             }
 
-            task.setInvoker(ActionInvoker.newBuilder().withMouseGesture(gesture).build());
-            return new HashSet<>(List.of(task));
+            return List.of(ActivationMatch.of(task, ActionInvoker.newBuilder().withMouseGesture(gesture).build(), eventNanos));
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Unable to classify recorded data", e);
         }
-        return Collections.emptySet();
+        return List.of();
     }
 
     /**
      * Process currently stored points and detect any gesture
      *
-     * @return the detected {@link MouseGesture}
+     * @return the detected {@link MouseGesture}, or null if no recognizer detected any.
      */
     private MouseGesture processCurrentData() {
-        int size = coordinates.size();
-        return mouseGestureRecognizer.classifyGesture(coordinates, size);
+        for (GestureRecognizer recognizer : recognizers) {
+            MouseGesture gesture = recognizer.recognize(coordinates);
+            if (gesture != null) {
+                return gesture;
+            }
+        }
+        return null;
     }
 
     /**
@@ -212,4 +333,11 @@ public final class MouseGestureManager extends KeyStrokeManager {
     public void stopListening() {
         mouseListener.stopListening();
     }
+
+    /**
+     * Immutable snapshot of the registered gestures. Registration builds a new snapshot and swaps it in,
+     * so readers never lock.
+     */
+    private record Registry(Map<MouseGesture, UserDefinedAction> actionMap) implements Snapshot {
+    }
 }
@@ -0,0 +1,82 @@
+package core.keyChain.managers;
+
+import core.keyChain.ButtonStroke;
+import core.keyChain.KeyChain;
+import core.keyChain.KeyStroke;
+import core.keyChain.StrokeCode;
+
+import java.util.Arrays;
+
+/**
+ * Primitive encoding of a {@link KeyChain}: the {@link StrokeCode#identity(int)} of each stroke in order.
+ * <p>
+ * Two hashes are maintained as strokes are added, so that probing a {@link KeyChainTable} never has to walk the chain:
+ * one over the exact codes, and one over the codes with every modifier generalized to
+ * {@link KeyStroke.Modifier#KEY_MODIFIER_UNKNOWN}.
+ */
+final class PackedKeyChain {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] codes;
+    private int size;
+    private int hash;
+    private int generalizedHash;
+
+    PackedKeyChain() {
+        codes = new int[DEFAULT_CAPACITY];
+        clear();
+    }
+
+    static PackedKeyChain of(KeyChain chain) {
+        PackedKeyChain packed = new PackedKeyChain();
+        for (ButtonStroke stroke : chain.getButtonStrokes()) {
+            packed.add(StrokeCode.of(stroke));
+        }
+        return packed;
+    }
+
+    /**
+     * Append a stroke to the chain. Only allocates if the chain grows beyond its current capacity.
+     *
+     * @param code {@link StrokeCode} of the stroke.
+     */
+    void add(int code) {
+        int identity = StrokeCode.identity(code);
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        codes[size++] = identity;
+        hash = 31 * hash + identity;
+        generalizedHash = 31 * generalizedHash + StrokeCode.generalize(identity);
+    }
+
+    void clear() {
+        size = 0;
+        hash = 1;
+        generalizedHash = 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int code(int index) {
+        return codes[index];
+    }
+
+    int hash() {
+        return hash;
+    }
+
+    int generalizedHash() {
+        return generalizedHash;
+    }
+
+    /**
+     * @return a copy of the codes in this chain.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(codes, size);
+    }
+}
@@ -0,0 +1,155 @@
+package core.keyChain.managers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton matching typed characters against all registered phrases at once.
+ * <p>
+ * Each typed character advances the automaton by one transition (amortized, following failure links),
+ * and the phrases ending at that character are precomputed for every state.
+ * The cost per character therefore does not depend on how many phrases are registered.
+ *
+ * @param <T> value associated with each registered phrase.
+ */
+final class PhraseAutomaton<T> {
+
+    /**
+     * State before any character is seen.
+     */
+    static final int START = 0;
+
+    private static final int NO_TRANSITION = -1;
+
+    private final TransitionTable transitions;
+    private final int[] failures;
+    private final List<List<T>> outputs;
+
+    private PhraseAutomaton(TransitionTable transitions, int[] failures, List<List<T>> outputs) {
+        this.transitions = transitions;
+        this.failures = failures;
+        this.outputs = outputs;
+    }
+
+    static <T> Builder<T> newBuilder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return the state after seeing the typed character.
+     */
+    int next(int state, char c) {
+        while (true) {
+            int target = transitions.get(state, c, NO_TRANSITION);
+            if (target != NO_TRANSITION) {
+                return target;
+            }
+            if (state == START) {
+                return START;
+            }
+            state = failures[state];
+        }
+    }
+
+    /**
+     * Feed a series of characters starting from {@link #START}.
+     *
+     * @return the state after seeing all characters.
+     */
+    int run(CharSequence characters) {
+        int state = START;
+        for (int i = 0; i < characters.length(); i++) {
+            state = next(state, characters.charAt(i));
+        }
+        return state;
+    }
+
+    /**
+     * @return values of all phrases ending at the last character that led to this state.
+     */
+    List<T> matches(int state) {
+        return outputs.get(state);
+    }
+
+    static final class Builder<T> {
+        private final List<Map<Character, Integer>> children;
+        private final List<List<T>> terminals;
+
+        private Builder() {
+            children = new ArrayList<>();
+            terminals = new ArrayList<>();
+            newNode();
+        }
+
+        Builder<T> add(String phrase, T value) {
+            int node = START;
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = phrase.charAt(i);
+                Integer child = children.get(node).get(c);
+                if (child == null) {
+                    child = newNode();
+                    children.get(node).put(c, child);
+                }
+                node = child;
+            }
+            terminals.get(node).add(value);
+            return this;
+        }
+
+        PhraseAutomaton<T> build() {
+            TransitionTable transitions = new TransitionTable();
+            int[] failures = new int[children.size()];
+            List<List<T>> outputs = new ArrayList<>(children.size());
+            for (int i = 0; i < children.size(); i++) {
+                outputs.add(null);
+            }
+            outputs.set(START, output(terminals.get(START), Collections.emptyList()));
+
+            PhraseAutomaton<T> automaton = new PhraseAutomaton<>(transitions, failures, outputs);
+            Queue<Integer> pending = new ArrayDeque<>();
+            for (Map.Entry<Character, Integer> entry : children.get(START).entrySet()) {
+                int child = entry.getValue();
+                transitions.put(START, entry.getKey(), child);
+                failures[child] = START;
+                pending.add(child);
+            }
+
+            // Breadth first so that the failure state of a node is always complete before the node is processed.
+            while (!pending.isEmpty()) {
+                int node = pending.poll();
+                outputs.set(node, output(terminals.get(node), outputs.get(failures[node])));
+
+                for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                    char c = entry.getKey();
+                    int child = entry.getValue();
+                    transitions.put(node, c, child);
+                    failures[child] = automaton.next(failures[node], c);
+                    pending.add(child);
+                }
+            }
+
+            return automaton;
+        }
+
+        private List<T> output(List<T> own, List<T> inherited) {
+            if (own.isEmpty()) {
+                return inherited;
+            }
+            List<T> output = new ArrayList<>(own.size() + inherited.size());
+            output.addAll(own);
+            output.addAll(inherited);
+            return Collections.unmodifiableList(output);
+        }
+
+        private int newNode() {
+            children.add(new HashMap<>());
+            terminals.add(new ArrayList<>());
+            return children.size() - 1;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package core.keyChain.managers;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -11,22 +10,29 @@ import java.util.Set;
 import core.config.Config;
 import core.config.Constants;
 import core.keyChain.ActionInvoker;
+import core.keyChain.ActivationMatch;
 import core.keyChain.ActivationPhrase;
 import core.keyChain.ButtonStroke;
 import core.keyChain.ButtonStroke.Source;
-import core.keyChain.RollingKeySeries;
+import core.keyChain.KeyboardState;
+import core.keyChain.TypedCharacterBuffer;
 import core.userDefinedTask.UserDefinedAction;
+import utilities.KeyCodeToChar;
 
 public final class PhraseManager extends KeyStrokeManager {
 
-	private final RollingKeySeries currentRollingKeySeries;
-	private final List<UserDefinedAction> registeredActions;
+	private final TypedCharacterBuffer typedCharacters;
+	private volatile Registry registry;
+	// Dispatch state, only accessed from the dispatching thread.
+	private PhraseAutomaton<PhraseBinding> automaton; // Automaton the state below belongs to.
+	private int state; // Automaton state reached by the typed characters.
 
 	public PhraseManager(Config config) {
 		super(config);
 
-		this.currentRollingKeySeries = new RollingKeySeries();
-		this.registeredActions = new ArrayList<>();
+		this.typedCharacters = new TypedCharacterBuffer();
+		this.registry = Registry.of(List.of());
+		this.automaton = registry.automaton();
 	}
 
 	@Override
@@ -35,69 +41,146 @@ public final class PhraseManager extends KeyStrokeManager {
 	}
 
 	@Override
-    public synchronized Set<UserDefinedAction> onButtonStrokePressed(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokePressed(ButtonStroke stroke, long eventNanos) {
 		if (stroke.getSource() != Source.KEYBOARD) {
-			return Collections.emptySet();
+			return List.of();
 		}
 
-		currentRollingKeySeries.addKeyStroke(stroke);
+		type(stroke);
 		if (!getConfig().isExecuteOnKeyReleased()) {
-			return considerTaskExecution(stroke);
+			return considerTaskExecution(stroke, eventNanos);
 		}
 
-		return Collections.emptySet();
+		return List.of();
 	}
 
 	@Override
-    public synchronized Set<UserDefinedAction> onButtonStrokeReleased(ButtonStroke stroke) {
+    public List<ActivationMatch> onButtonStrokeReleased(ButtonStroke stroke, long eventNanos) {
 		if (stroke.getSource() != Source.KEYBOARD) {
-			return Collections.emptySet();
+			return List.of();
 		}
-		currentRollingKeySeries.addKeyStroke(stroke);
+		type(stroke);
 		if (getConfig().isExecuteOnKeyReleased()) {
-			return considerTaskExecution(stroke);
+			return considerTaskExecution(stroke, eventNanos);
 		}
 
-		return Collections.emptySet();
+		return List.of();
 	}
 
+	private void type(ButtonStroke stroke) {
+		syncAutomaton();
+		String typed = typedCharacters.add(stroke);
+		for (int i = 0; i < typed.length(); i++) {
+			state = automaton.next(state, typed.charAt(i));
+		}
+	}
+
+	/**
+	 * Two phrases collide if one contains the other. Registered phrases inside the activation are found
+	 * by running the activation through the automaton, and registered phrases containing the activation
+	 * are found in the suffix index.
+	 */
 	@Override
 	public Set<UserDefinedAction> collision(Collection<ActionInvoker> activations) {
+		return collision(registry, activations);
+	}
+
+	@Override
+	public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> batch = new HashSet<>(actions);
+		List<UserDefinedAction> combined = new ArrayList<>();
+		for (UserDefinedAction existing : registry.actions()) {
+			if (!batch.contains(existing)) {
+				combined.add(existing);
+			}
+		}
+		combined.addAll(actions);
+		Registry current = Registry.of(combined);
+		return BatchCollisions.find(actions, activation -> collision(current, List.of(activation)));
+	}
+
+	private static Set<UserDefinedAction> collision(Registry current, Collection<ActionInvoker> activations) {
 		Set<UserDefinedAction> output = new HashSet<>();
 		for (ActionInvoker activation : activations) {
-			for (UserDefinedAction action : registeredActions) {
-				if (collisionWithAction(action, activation)) {
-					output.add(action);
+			for (ActivationPhrase phrase : activation.getPhrases()) {
+				String value = phrase.getValue();
+				int automatonState = PhraseAutomaton.START;
+				addActions(current.automaton().matches(automatonState), output);
+				for (int i = 0; i < value.length(); i++) {
+					automatonState = current.automaton().next(automatonState, value.charAt(i));
+					addActions(current.automaton().matches(automatonState), output);
 				}
+				current.suffixIndex().collectExtensionsOf(value.chars().toArray(), output);
 			}
 		}
 		return output;
 	}
 
-	private boolean collisionWithAction(UserDefinedAction action, ActionInvoker activation) {
-		for (ActivationPhrase phrase : activation.getPhrases()) {
-			for (ActivationPhrase actionPhrase : action.getActivation().getPhrases()) {
-				if (phrase.collideWith(actionPhrase)) {
-					return true;
-				}
-			}
+	private static void addActions(List<PhraseBinding> bindings, Set<UserDefinedAction> output) {
+		for (PhraseBinding binding : bindings) {
+			output.add(binding.action());
 		}
-		return false;
 	}
 
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+	public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
 		Set<UserDefinedAction> toRemove = collision(action.getActivation());
-		toRemove.forEach(this::unRegisterAction);
+		List<UserDefinedAction> actions = new ArrayList<>(registry.actions());
+		toRemove.forEach(removed -> removeAction(actions, removed));
 
-		registeredActions.add(action);
+		actions.add(action);
+		registry = Registry.of(actions);
 		return toRemove;
 	}
 
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+	public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> toRemove = collision(actions.stream().map(UserDefinedAction::getActivation).toList());
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
+		toRemove.forEach(removed -> removeAction(updated, removed));
+
+		updated.addAll(actions);
+		registry = Registry.of(updated);
+		return toRemove;
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+		return unRegisterActions(List.of(action));
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
 		Set<UserDefinedAction> output = new HashSet<>();
-		for (Iterator<UserDefinedAction> iterator = registeredActions.iterator(); iterator.hasNext();) {
+		actions.forEach(action -> output.addAll(removeAction(updated, action)));
+		registry = Registry.of(updated);
+		return output;
+	}
+
+	@Override
+	public Set<UserDefinedAction> registeredActions() {
+		return new HashSet<>(registry.actions());
+	}
+
+	@Override
+	public int interests() {
+		return registry.actions().isEmpty() ? EventClass.NONE : EventClass.KEYBOARD;
+	}
+
+	@Override
+	public Snapshot snapshot() {
+		return registry;
+	}
+
+	@Override
+	public synchronized void restore(Snapshot snapshot) {
+		registry = (Registry) snapshot;
+	}
+
+	private static Set<UserDefinedAction> removeAction(List<UserDefinedAction> actions, UserDefinedAction action) {
+		Set<UserDefinedAction> output = new HashSet<>();
+		for (Iterator<UserDefinedAction> iterator = actions.iterator(); iterator.hasNext();) {
 			UserDefinedAction existing = iterator.next();
 			if (existing.equals(action)) {
 				output.add(existing);
@@ -107,39 +190,76 @@ public final class PhraseManager extends KeyStrokeManager {
 		return output;
 	}
 
+	/**
+	 * Pick up the latest registry. If it changed, replay the typed characters through its automaton
+	 * so that phrases partially typed before the change can still complete.
+	 */
+	private void syncAutomaton() {
+		PhraseAutomaton<PhraseBinding> latest = registry.automaton();
+		if (latest == automaton) {
+			return;
+		}
+		automaton = latest;
+		state = automaton.run(typedCharacters);
+	}
+
 	@Override
-    public synchronized void clear() {
-		currentRollingKeySeries.clearKeys();
+    public void clear() {
+		typedCharacters.clear();
+		state = PhraseAutomaton.START;
 	}
 
 	/**
 	 * Given a new key stroke coming in, consider start executing actions based on their activations.
-	 * @return set of actions to execute.
+	 * @return matches of the actions to execute.
 	 */
-	private Set<UserDefinedAction> considerTaskExecution(ButtonStroke key) {
+	private List<ActivationMatch> considerTaskExecution(ButtonStroke key, long eventNanos) {
 		if (key.getKey() == Constants.HALT_TASK && getConfig().isEnabledHaltingKeyPressed()) {
 			clear();
-			return Collections.emptySet();
+			return List.of();
 		}
 
-		if (key.equals(currentRollingKeySeries.getLast())) {
-			return tasksToExecute();
+		// Only a stroke that types a character can complete a phrase.
+		if (!KeyCodeToChar.hasCharForCode(key.getKey(), KeyboardState.getDefault())) {
+			return List.of();
 		}
-		return Collections.emptySet();
+		return tasksToExecute(eventNanos);
 	}
 
-	private Set<UserDefinedAction> tasksToExecute() {
-		Set<UserDefinedAction> output = new HashSet<>();
-		for (UserDefinedAction action : registeredActions) {
-			ActionInvoker activation = action.getActivation();
-			for (ActivationPhrase phrase : activation.getPhrases()) {
-				if (currentRollingKeySeries.collideWith(phrase)) {
-					action.setInvoker(ActionInvoker.newBuilder().withPhrase(phrase.clone()).build());
-					output.add(action);
-				}
-			}
+	private List<ActivationMatch> tasksToExecute(long eventNanos) {
+		List<PhraseBinding> matches = automaton.matches(state);
+		if (matches.isEmpty()) {
+			return List.of();
 		}
 
+		List<ActivationMatch> output = new ArrayList<>();
+		Set<UserDefinedAction> matched = new HashSet<>();
+		for (PhraseBinding match : matches) {
+			if (matched.add(match.action())) {
+				output.add(ActivationMatch.of(match.action(), ActionInvoker.newBuilder().withPhrase(match.phrase().clone()).build(), eventNanos));
+			}
+		}
 		return output;
 	}
+
+	private record PhraseBinding(ActivationPhrase phrase, UserDefinedAction action) {
+	}
+
+	/**
+	 * Immutable snapshot of the registered actions, compiled into an automaton for dispatch and a suffix index
+	 * for collision checks. Registration builds a new snapshot and swaps it in, so readers never lock.
+	 */
+	private record Registry(List<UserDefinedAction> actions, PhraseAutomaton<PhraseBinding> automaton, PrefixTreeIndex<UserDefinedAction> suffixIndex) implements Snapshot {
+		private static Registry of(List<UserDefinedAction> actions) {
+			PhraseAutomaton.Builder<PhraseBinding> builder = PhraseAutomaton.newBuilder();
+			PrefixTreeIndex<UserDefinedAction> index = PrefixTreeIndex.forCharacters();
+			for (UserDefinedAction action : actions) {
+				for (ActivationPhrase phrase : action.getActivation().getPhrases()) {
+					builder.add(phrase.getValue(), new PhraseBinding(phrase, action));
+					index.addSuffixes(phrase.getValue().chars().toArray(), action);
+				}
+			}
+			return new Registry(List.copyOf(actions), builder.build(), index);
+		}
+	}
 }
@@ -0,0 +1,153 @@
+package core.keyChain.managers;
+
+import core.keyChain.StrokeCode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prefix tree over registered activations, used to find the registered activations that collide with a new one
+ * without comparing it against every registration.
+ * <p>
+ * Each node remembers which values have a path through it, and which values have a path ending at it. A query walks
+ * the tree once along the queried path, so its cost depends on the length of the query rather than the number of
+ * registered values. Inserting every suffix of a path with {@link #addSuffixes(int[], Object)} turns the tree into a
+ * suffix tree, which answers whether the query appears anywhere inside a registered path.
+ * <p>
+ * The tree is only ever added to. It is rebuilt as a whole when registrations change.
+ *
+ * @param <T> value associated with each registered path.
+ */
+final class PrefixTreeIndex<T> {
+
+    private static final int ROOT = 0;
+    private static final int NO_CHILD = -1;
+
+    private final boolean strokeCodes;
+    private final TransitionTable children;
+    private final List<Set<T>> passing;
+    private final List<Set<T>> terminals;
+
+    private PrefixTreeIndex(boolean strokeCodes) {
+        this.strokeCodes = strokeCodes;
+        this.children = new TransitionTable();
+        this.passing = new ArrayList<>();
+        this.terminals = new ArrayList<>();
+        newNode();
+    }
+
+    /**
+     * @return an index whose symbols are {@link StrokeCode}s, compared with {@link StrokeCode#matches(int, int)}.
+     */
+    static <T> PrefixTreeIndex<T> forStrokes() {
+        return new PrefixTreeIndex<>(true);
+    }
+
+    /**
+     * @return an index whose symbols are characters, compared exactly.
+     */
+    static <T> PrefixTreeIndex<T> forCharacters() {
+        return new PrefixTreeIndex<>(false);
+    }
+
+    void add(int[] path, T value) {
+        insert(path, 0, value, true);
+    }
+
+    /**
+     * Add every suffix of the path, so that {@link #collectExtensionsOf(int[], Collection)} finds the value
+     * for any query appearing inside the path.
+     */
+    void addSuffixes(int[] path, T value) {
+        for (int start = 0; start <= path.length; start++) {
+            insert(path, start, value, start == 0);
+        }
+    }
+
+    /**
+     * Collect values whose path is a prefix of the query, including the query itself.
+     */
+    void collectPrefixesOf(int[] query, Collection<T> output) {
+        List<Integer> nodes = List.of(ROOT);
+        collect(terminals, nodes, output);
+        for (int symbol : query) {
+            nodes = next(nodes, symbol);
+            if (nodes.isEmpty()) {
+                return;
+            }
+            collect(terminals, nodes, output);
+        }
+    }
+
+    /**
+     * Collect values whose path starts with the query, including the query itself.
+     */
+    void collectExtensionsOf(int[] query, Collection<T> output) {
+        List<Integer> nodes = List.of(ROOT);
+        for (int symbol : query) {
+            nodes = next(nodes, symbol);
+            if (nodes.isEmpty()) {
+                return;
+            }
+        }
+        collect(passing, nodes, output);
+    }
+
+    private List<Integer> next(List<Integer> nodes, int symbol) {
+        int[] symbols = new int[StrokeCode.MAX_EQUIVALENTS];
+        int count = 1;
+        if (strokeCodes) {
+            count = StrokeCode.equivalents(symbol, symbols);
+        } else {
+            symbols[0] = symbol;
+        }
+
+        List<Integer> output = new ArrayList<>();
+        for (int node : nodes) {
+            for (int i = 0; i < count; i++) {
+                int child = children.get(node, symbols[i], NO_CHILD);
+                if (child != NO_CHILD) {
+                    output.add(child);
+                }
+            }
+        }
+        return output;
+    }
+
+    private void collect(List<Set<T>> values, List<Integer> nodes, Collection<T> output) {
+        for (int node : nodes) {
+            output.addAll(values.get(node));
+        }
+    }
+
+    private void insert(int[] path, int start, T value, boolean terminal) {
+        int node = ROOT;
+        passing.get(node).add(value);
+        for (int i = start; i < path.length; i++) {
+            int symbol = symbol(path[i]);
+            int child = children.get(node, symbol, NO_CHILD);
+            if (child == NO_CHILD) {
+                child = newNode();
+                children.put(node, symbol, child);
+            }
+            node = child;
+            passing.get(node).add(value);
+        }
+        if (terminal) {
+            terminals.get(node).add(value);
+        }
+    }
+
+    private int symbol(int value) {
+        return strokeCodes ? StrokeCode.identity(value) : value;
+    }
+
+    private int newNode() {
+        passing.add(new HashSet<>());
+        terminals.add(new HashSet<>());
+        return passing.size() - 1;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Set;
 
 import core.keyChain.ActivationEvent;
 import core.keyChain.ActivationEvent.EventType;
+import core.keyChain.ActivationMatch;
 import core.keyChain.SharedVariablesActivation;
 import core.keyChain.ActionInvoker;
 import core.userDefinedTask.UserDefinedAction;
@@ -17,10 +18,10 @@ import core.userDefinedTask.internals.SharedVariablesSubscription;
 
 public final class SharedVariablesManager implements ActivationEventManager {
 
-	private final List<UserDefinedAction> registeredActions;
+	private volatile Registry registry;
 
 	public SharedVariablesManager() {
-		registeredActions = new ArrayList<>();
+		registry = new Registry(List.of());
 	}
 
 	@Override
@@ -39,18 +40,19 @@ public final class SharedVariablesManager implements ActivationEventManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> onActivationEvent(ActivationEvent event) {
+	public List<ActivationMatch> onActivationEvent(ActivationEvent event) {
 		if (event.getType() != EventType.SHARED_VARIABLE) {
-			return new HashSet<>();
+			return List.of();
 		}
 
 		SharedVariablesEvent variable = event.getVariable();
-		Set<UserDefinedAction> output = new HashSet<>();
-		for (UserDefinedAction action : registeredActions) {
+		List<ActivationMatch> output = new ArrayList<>();
+		for (UserDefinedAction action : registry.actions()) {
 			for (SharedVariablesActivation variableActivation : action.getActivation().getVariables()) {
 				if (variableActivation.getVariable().includes(variable)) {
-					action.setInvoker(ActionInvoker.newBuilder().withVariable(SharedVariablesActivation.of(SharedVariablesSubscription.forVar(variable.getNamespace(),  variable.getName()))).build());
-					output.add(action);
+					ActionInvoker invoker = ActionInvoker.newBuilder().withVariable(SharedVariablesActivation.of(SharedVariablesSubscription.forVar(variable.getNamespace(),  variable.getName()))).build();
+					output.add(ActivationMatch.of(action, invoker, event.getNanos()));
+					break;
 				}
 			}
 		}
@@ -63,30 +65,72 @@ public final class SharedVariablesManager implements ActivationEventManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-		if (action.getActivation().getVariables().isEmpty()) {
-			return new HashSet<>();
-		}
+	public Set<UserDefinedAction> collisionsOf(Collection<UserDefinedAction> actions) {
+		return new HashSet<>();
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+		return registerActions(List.of(action));
+	}
 
-		for (UserDefinedAction existing : registeredActions) {
-			if (existing.equals(action)) {
-				return new HashSet<>();
+	@Override
+	public synchronized Set<UserDefinedAction> registerActions(Collection<UserDefinedAction> actions) {
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
+		for (UserDefinedAction action : actions) {
+			if (!action.getActivation().getVariables().isEmpty() && !updated.contains(action)) {
+				updated.add(action);
 			}
 		}
-		registeredActions.add(action);
+		registry = new Registry(List.copyOf(updated));
 		return new HashSet<>();
 	}
 
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+	public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+		return unRegisterActions(List.of(action));
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> unRegisterActions(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> toRemove = new HashSet<>(actions);
+		List<UserDefinedAction> updated = new ArrayList<>(registry.actions());
 		Set<UserDefinedAction> output = new HashSet<>();
-		for (Iterator<UserDefinedAction> iterator = registeredActions.iterator(); iterator.hasNext();) {
+		for (Iterator<UserDefinedAction> iterator = updated.iterator(); iterator.hasNext();) {
 			UserDefinedAction existing = iterator.next();
-			if (existing.equals(action)) {
+			if (toRemove.contains(existing)) {
 				output.add(existing);
 				iterator.remove();
 			}
 		}
+		registry = new Registry(List.copyOf(updated));
 		return output;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public Set<UserDefinedAction> registeredActions() {
+		return new HashSet<>(registry.actions());
+	}
+
+	@Override
+	public int interests() {
+		return registry.actions().isEmpty() ? EventClass.NONE : EventClass.SHARED_VARIABLE;
+	}
+
+	@Override
+	public Snapshot snapshot() {
+		return registry;
+	}
+
+	@Override
+	public synchronized void restore(Snapshot snapshot) {
+		registry = (Registry) snapshot;
+	}
+
+	/**
+	 * Immutable snapshot of the registered actions. Registration builds a new snapshot and swaps it in,
+	 * so readers never lock.
+	 */
+	private record Registry(List<UserDefinedAction> actions) implements Snapshot {
+	}
+}
@@ -0,0 +1,83 @@
+package core.keyChain.managers;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from (state, symbol) pairs to target states, used by the matching automata.
+ * Lookups do not allocate. The table is only written while the automaton is being built.
+ */
+final class TransitionTable {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    TransitionTable() {
+        keys = new long[16];
+        values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void put(int state, int symbol, int target) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        long key = key(state, symbol);
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        if (keys[index] == EMPTY) {
+            size++;
+        }
+        keys[index] = key;
+        values[index] = target;
+    }
+
+    /**
+     * @return the target state, or the default value if there is no transition for the pair.
+     */
+    int get(int state, int symbol, int defaultValue) {
+        long key = key(state, symbol);
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (true) {
+            long existing = keys[index];
+            if (existing == key) {
+                return values[index];
+            }
+            if (existing == EMPTY) {
+                return defaultValue;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put((int) (oldKeys[i] >>> 32), (int) oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static long key(int state, int symbol) {
+        return ((long) state << 32) | (symbol & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
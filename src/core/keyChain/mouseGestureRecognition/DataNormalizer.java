@@ -1,31 +1,57 @@
 package core.keyChain.mouseGestureRecognition;
 
-import java.awt.*;
-import java.util.ArrayList;
-
+/**
+ * Turns recorded points into the features the gesture model was trained on.
+ * <p>
+ * {@value #POINT_COUNT} points are picked out of the recording by leaving out points at a regular period, keeping
+ * the last ones if more remain. They are then scaled to fit into a unit square, centering the shorter dimension.
+ * Points are read straight from the {@link GesturePointBuffer} and the features are written into a caller provided
+ * array, so normalizing does not allocate.
+ */
 final class DataNormalizer {
 
     public static final int POINT_COUNT = 35;
+    public static final int FEATURE_COUNT = POINT_COUNT * 2;
+
+    // Indices of the picked points in the buffer, as a ring keeping the last POINT_COUNT ones.
+    private final int[] picked;
+
+    DataNormalizer() {
+        picked = new int[POINT_COUNT];
+    }
 
     /**
-     * Trim down the list of points to have exactly {@link DataNormalizer}.
-     * Then scale the points so that they fit into a unit square.
+     * Pick exactly {@link #POINT_COUNT} points and scale them so that they fit into a unit square.
      *
-     * @param input input list of points to normalize.
-     * @return list of normalized points flattened into (x1,y1,x2,y2,...).
+     * @param input  recorded points.
+     * @param output array of at least {@link #FEATURE_COUNT} elements, receiving the normalized points flattened
+     *               into (x1,y1,x2,y2,...).
+     * @return whether the output was filled, or false if not enough points could be picked.
      */
-    public ArrayList<Float> normalize(ArrayList<Point> input) {
-        input = new DataDefinitionTrimmer().trim(input);
+    boolean normalize(GesturePointBuffer input, double[] output) {
+        return normalize(input, output, 0);
+    }
+
+    /**
+     * Same as {@link #normalize(GesturePointBuffer, double[])}, writing the features from the given offset on.
+     */
+    boolean normalize(GesturePointBuffer input, double[] output, int offset) {
+        int first = pick(input.size());
+        if (first < 0) {
+            return false;
+        }
 
         int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
         int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < POINT_COUNT; i++) {
+            int index = picked[(first + i) % POINT_COUNT];
+            int x = input.getX(index);
+            int y = input.getY(index);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
 
-        for (Point p : input) {
-            minX = Math.min(minX, p.x);
-            minY = Math.min(minY, p.y);
-
-            maxX = Math.max(maxX, p.x);
-            maxY = Math.max(maxY, p.y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
         }
 
         int width = maxX - minX;
@@ -50,19 +76,49 @@ final class DataNormalizer {
             subY = minY;
         }
 
-        ArrayList<Point.Float> centered = new ArrayList<>(input.size());
-        for (Point current : input) {
-            centered.add(new Point.Float(current.x - subX, current.y - subY));
-        }
-
-        ArrayList<Float> output = new ArrayList<>(input.size() * 2);
         // Now make it into a unit square and flatten
         float scale = Math.max(width, height);
-        for (Point.Float current : centered) {
-            output.add(current.x / scale);
-            output.add(current.y / scale);
+        for (int i = 0; i < POINT_COUNT; i++) {
+            int index = picked[(first + i) % POINT_COUNT];
+            float x = input.getX(index) - subX;
+            float y = input.getY(index) - subY;
+            output[offset + 2 * i] = x / scale;
+            output[offset + 2 * i + 1] = y / scale;
+        }
+        return true;
+    }
+
+    /**
+     * Pick the points to keep, leaving out points once every period.
+     *
+     * @param length number of recorded points.
+     * @return position in {@link #picked} of the first picked point, or -1 if fewer than {@link #POINT_COUNT} points
+     * were picked.
+     */
+    private int pick(int length) {
+        if (length < POINT_COUNT) {
+            return -1;
+        }
+        if (length == POINT_COUNT) {
+            for (int i = 0; i < POINT_COUNT; i++) {
+                picked[i] = i;
+            }
+            return 0;
+        }
+
+        float leaveOutPeriod = (float) length / (length - POINT_COUNT);
+        int count = 0;
+        int previousBase = 0;
+        picked[count++] = 0;
+        for (int i = 1; i < length; i++) {
+            int newBase = (int) ((i + 1) / leaveOutPeriod);
+            if (newBase == previousBase) {
+                picked[count++ % POINT_COUNT] = i;
+            }
+
+            previousBase = newBase;
         }
 
-        return output;
+        return count >= POINT_COUNT ? count % POINT_COUNT : -1;
     }
 }
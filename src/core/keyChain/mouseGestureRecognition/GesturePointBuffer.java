@@ -0,0 +1,99 @@
+package core.keyChain.mouseGestureRecognition;
+
+/**
+ * Preallocated buffer of mouse positions recorded while a gesture is drawn.
+ * <p>
+ * There must be a single writer, the mouse hook thread, calling {@link #add(int, int, long)}, and a single reader
+ * calling the other methods. Adding a point is three array stores and a volatile write, so the buffer keeps up with
+ * high polling rates without allocating. When full, new points are ignored, so the start of the stroke is always
+ * kept. Recorded points are never overwritten before the next {@link #clear()}, and {@link #freeze()} fixes the
+ * number of points the reader sees, so the reader gets a consistent stroke even while the writer is still adding.
+ */
+public final class GesturePointBuffer {
+
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] nanos;
+    private volatile long written; // Only written by the writer.
+    private volatile long start; // Only written by the reader.
+    private long end = -1; // Only accessed by the reader. Position after the last visible point, or -1 if not frozen.
+
+    /**
+     * @param capacity maximum number of points kept.
+     */
+    public GesturePointBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive but got " + capacity + ".");
+        }
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.nanos = new long[capacity];
+    }
+
+    /**
+     * Record a point, unless the buffer is full. Must only be called from the writer thread.
+     *
+     * @param nanos {@link System#nanoTime()} when the mouse was at this point.
+     */
+    public void add(int x, int y, long nanos) {
+        long position = written;
+        if (position - start >= xs.length) {
+            return;
+        }
+        int index = (int) (position % xs.length);
+        xs[index] = x;
+        ys[index] = y;
+        this.nanos[index] = nanos;
+        written = position + 1;
+    }
+
+    /**
+     * Forget all points recorded so far.
+     */
+    public void clear() {
+        start = written;
+        end = -1;
+    }
+
+    /**
+     * Ignore points added from now on until the next {@link #clear()}, so that every pass over the points sees the
+     * same stroke.
+     */
+    public void freeze() {
+        end = written;
+    }
+
+    /**
+     * @return number of points recorded since the last {@link #clear()}, up to the capacity, or up to the last
+     * {@link #freeze()}.
+     */
+    public int size() {
+        return (int) ((end < 0 ? written : end) - start);
+    }
+
+    /**
+     * @param index index of the point, 0 being the first point recorded.
+     */
+    public int getX(int index) {
+        return xs[indexOf(index)];
+    }
+
+    /**
+     * @param index index of the point, 0 being the first point recorded.
+     */
+    public int getY(int index) {
+        return ys[indexOf(index)];
+    }
+
+    /**
+     * @param index index of the point, 0 being the first point recorded.
+     * @return {@link System#nanoTime()} when the point was recorded.
+     */
+    public long getNanos(int index) {
+        return nanos[indexOf(index)];
+    }
+
+    private int indexOf(int index) {
+        return (int) ((start + index) % xs.length);
+    }
+}
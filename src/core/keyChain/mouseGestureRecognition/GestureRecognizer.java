@@ -0,0 +1,17 @@
+package core.keyChain.mouseGestureRecognition;
+
+import core.keyChain.MouseGesture;
+
+/**
+ * Recognizes a {@link MouseGesture} from the points recorded while it was drawn.
+ */
+public interface GestureRecognizer {
+
+    /**
+     * Recognize the gesture drawn. Calls are never concurrent, so implementations may reuse internal buffers.
+     *
+     * @param points the recorded points ordered chronologically.
+     * @return the recognized gesture, or null if this recognizer does not recognize any gesture in the points.
+     */
+    MouseGesture recognize(GesturePointBuffer points);
+}
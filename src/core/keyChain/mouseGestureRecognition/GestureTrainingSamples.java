@@ -0,0 +1,217 @@
+package core.keyChain.mouseGestureRecognition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Labeled gesture recordings collected to train the gesture model with {@link LogisticRegressionTrainer}.
+ * <p>
+ * Recordings are kept as the features the model predicts from, in one flat array of
+ * {@link DataNormalizer#FEATURE_COUNT} values per sample, along with the index of each sample's label. Samples are
+ * persisted in a little endian binary file:
+ * <pre>
+ * int    magic, {@link #MAGIC}
+ * int    version, {@link #VERSION}
+ * int    label count L
+ * int    feature count F
+ * int    sample count N
+ * L x    (int byte length, UTF-8 bytes) label
+ * N x    int label index
+ * N x F  float feature
+ * </pre>
+ */
+public final class GestureTrainingSamples {
+
+    static final int MAGIC = 0x53475052; // "RPGS" when read as little endian bytes.
+    static final int VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final DataNormalizer normalizer;
+    private final List<String> labels;
+    private int[] sampleLabels;
+    private double[] features;
+    private int size;
+    private boolean modified;
+
+    public GestureTrainingSamples() {
+        normalizer = new DataNormalizer();
+        labels = new ArrayList<>();
+        sampleLabels = new int[INITIAL_CAPACITY];
+        features = new double[INITIAL_CAPACITY * DataNormalizer.FEATURE_COUNT];
+    }
+
+    /**
+     * Read samples from a file written by {@link #write(Path)}.
+     *
+     * @return the samples read, or no samples if the file does not exist.
+     * @throws IOException if the file cannot be read or is not a samples file.
+     */
+    public static GestureTrainingSamples read(Path path) throws IOException {
+        GestureTrainingSamples output = new GestureTrainingSamples();
+        if (!Files.exists(path)) {
+            return output;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a mouse gesture samples file.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported mouse gesture samples version " + version + ".");
+            }
+            int labelCount = buffer.getInt();
+            int featureCount = buffer.getInt();
+            int sampleCount = buffer.getInt();
+            if (featureCount != DataNormalizer.FEATURE_COUNT || labelCount < 0 || sampleCount < 0) {
+                throw new IOException("Invalid mouse gesture samples dimensions.");
+            }
+
+            for (int i = 0; i < labelCount; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                output.labels.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            output.ensureCapacity(sampleCount);
+            for (int i = 0; i < sampleCount; i++) {
+                int label = buffer.getInt();
+                if (label < 0 || label >= labelCount) {
+                    throw new IOException("Invalid label index " + label + ".");
+                }
+                output.sampleLabels[i] = label;
+            }
+            for (int i = 0; i < sampleCount * featureCount; i++) {
+                output.features[i] = buffer.getFloat();
+            }
+            output.size = sampleCount;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Mouse gesture samples file is truncated.", e);
+        }
+        return output;
+    }
+
+    /**
+     * Normalize the recorded points into features and store them as a sample of the given label.
+     *
+     * @return whether the sample was added, or false if the recording has too few points.
+     */
+    public synchronized boolean add(String label, GesturePointBuffer points) {
+        ensureCapacity(size + 1);
+        if (!normalizer.normalize(points, features, size * DataNormalizer.FEATURE_COUNT)) {
+            return false;
+        }
+
+        int index = labels.indexOf(label);
+        if (index < 0) {
+            index = labels.size();
+            labels.add(label);
+        }
+        sampleLabels[size++] = index;
+        modified = true;
+        return true;
+    }
+
+    public synchronized void clear() {
+        labels.clear();
+        size = 0;
+        modified = true;
+    }
+
+    /**
+     * @return number of samples of each label, in the order labels were first seen.
+     */
+    public synchronized Map<String, Integer> countsByLabel() {
+        int[] counts = new int[labels.size()];
+        for (int i = 0; i < size; i++) {
+            counts[sampleLabels[i]]++;
+        }
+
+        Map<String, Integer> output = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                output.put(labels.get(i), counts[i]);
+            }
+        }
+        return output;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return whether samples were added or cleared since they were last read or written.
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Write all samples to the file, replacing it.
+     */
+    public synchronized void write(Path path) throws IOException {
+        byte[][] encodedLabels = new byte[labels.size()][];
+        int bytes = 5 * Integer.BYTES + size * (Integer.BYTES + Float.BYTES * DataNormalizer.FEATURE_COUNT);
+        for (int i = 0; i < encodedLabels.length; i++) {
+            encodedLabels[i] = labels.get(i).getBytes(StandardCharsets.UTF_8);
+            bytes += Integer.BYTES + encodedLabels[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(labels.size()).putInt(DataNormalizer.FEATURE_COUNT).putInt(size);
+        for (byte[] label : encodedLabels) {
+            buffer.putInt(label.length).put(label);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(sampleLabels[i]);
+        }
+        for (int i = 0; i < size * DataNormalizer.FEATURE_COUNT; i++) {
+            buffer.putFloat((float) features[i]);
+        }
+
+        try (OutputStream output = Files.newOutputStream(path)) {
+            output.write(buffer.array());
+        }
+        modified = false;
+    }
+
+    /**
+     * @return a copy of the samples that does not change when more samples are added.
+     */
+    synchronized Snapshot snapshot() {
+        return new Snapshot(labels.toArray(new String[0]),
+                Arrays.copyOf(sampleLabels, size),
+                Arrays.copyOf(features, size * DataNormalizer.FEATURE_COUNT));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= sampleLabels.length) {
+            return;
+        }
+        int updated = Math.max(capacity, sampleLabels.length * 2);
+        sampleLabels = Arrays.copyOf(sampleLabels, updated);
+        features = Arrays.copyOf(features, updated * DataNormalizer.FEATURE_COUNT);
+    }
+
+    /**
+     * Immutable copy of the samples. The features of sample i start at {@code i * DataNormalizer.FEATURE_COUNT}.
+     */
+    record Snapshot(String[] labels, int[] sampleLabels, double[] features) {
+        int size() {
+            return sampleLabels.length;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package core.keyChain.mouseGestureRecognition;
+
+import Jama.Matrix;
+import staticResources.MouseGestureModelResources;
+
+import java.util.Random;
+
+/**
+ * Compares {@link LogisticRegressionModel#predict(double[])} with the Jama based implementation it replaced.
+ * <p>
+ * Run the main method with the static content on the class path. This is a plain timing loop rather than a
+ * benchmark harness, so numbers are only indicative. Both implementations must agree on every input.
+ */
+final class LogisticRegressionBenchmark {
+
+    private static final int INPUTS = 1024;
+    private static final int WARM_UP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1000;
+
+    private LogisticRegressionBenchmark() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    public static void main(String[] args) {
+        String[] labels = MouseGestureModelResources.getLabels();
+        double[] intercepts = MouseGestureModelResources.getIntercepts();
+        double[][] coefficients = MouseGestureModelResources.getCoefficients(labels.length);
+        if (intercepts == null || coefficients == null) {
+            throw new IllegalStateException("Unable to load mouse gesture model.");
+        }
+
+        LogisticRegressionModel model = new LogisticRegressionModel();
+        model.load(labels, coefficients, intercepts);
+        JamaModel jama = new JamaModel(labels, coefficients, intercepts);
+
+        Random random = new Random(0);
+        double[][] inputs = new double[INPUTS][DataNormalizer.FEATURE_COUNT];
+        for (double[] input : inputs) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+        }
+
+        for (double[] input : inputs) {
+            if (!model.predict(input).equals(jama.predict(input))) {
+                throw new IllegalStateException("Implementations disagree.");
+            }
+        }
+
+        run("Flat array", inputs, WARM_UP_ROUNDS, model::predict);
+        run("Jama", inputs, WARM_UP_ROUNDS, jama::predict);
+        System.out.printf("Flat array: %.1f ns/prediction%n", run("Flat array", inputs, MEASURED_ROUNDS, model::predict));
+        System.out.printf("Jama: %.1f ns/prediction%n", run("Jama", inputs, MEASURED_ROUNDS, jama::predict));
+    }
+
+    private static double run(String name, double[][] inputs, int rounds, Predictor predictor) {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (double[] input : inputs) {
+                sink += predictor.predict(input).length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 0) {
+            System.out.println(name + " predicted nothing.");
+        }
+        return (double) elapsed / ((long) rounds * inputs.length);
+    }
+
+    private interface Predictor {
+        String predict(double[] features);
+    }
+
+    /**
+     * The previous implementation, kept as the baseline.
+     */
+    private static final class JamaModel {
+        private final String[] labels;
+        private final Matrix w;
+        private final Matrix c;
+
+        private JamaModel(String[] labels, double[][] coefficients, double[] intercepts) {
+            this.labels = labels;
+            this.w = new Matrix(coefficients);
+            this.c = new Matrix(new double[][]{intercepts});
+        }
+
+        private String predict(double[] featureValues) {
+            Matrix x = new Matrix(new double[][]{featureValues});
+            double[] probabilities = x.times(w.transpose()).plus(c).getArray()[0];
+            int maxIndex = -1;
+            double maxValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < probabilities.length; i++) {
+                if (probabilities[i] > maxValue) {
+                    maxValue = probabilities[i];
+                    maxIndex = i;
+                }
+            }
+            return labels[maxIndex];
+        }
+    }
+}
@@ -1,57 +1,136 @@
 package core.keyChain.mouseGestureRecognition;
 
-
-import Jama.Matrix;
 import staticResources.MouseGestureModelResources;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static core.config.Constants.MOUSE_GESTURE_MODEL_FILE_NAME;
+
 /**
  * Logistic regression model raw implementation. This only implements the predict function.
+ * <p>
+ * Coefficients are kept in one flat row-major array with a row per label, so scoring a label is a dot product over
+ * contiguous memory, and predicting does not allocate. The arrays are swapped in as one immutable snapshot, so a
+ * newly trained model can be loaded while predictions are running.
  *
  * @author HP Truong
  */
 final class LogisticRegressionModel {
 
-    private String[] labels; // classifying classes
-    private Matrix w; // coefficients
-    private Matrix c; // intercepts
+    private static final Logger LOGGER = Logger.getLogger(LogisticRegressionModel.class.getName());
+
+    private volatile Weights weights;
 
     /**
-     * Load model data from static resources.
+     * @return the model used to classify gestures. It is loaded on first use, so that startup does not pay for it
+     * when gestures are not used.
      */
-    void load() {
-        labels = MouseGestureModelResources.getLabels();
+    static LogisticRegressionModel getDefault() {
+        return DefaultModel.INSTANCE;
+    }
 
-        double[] intercepts = MouseGestureModelResources.getIntercepts();
-        double[][] coefficients = MouseGestureModelResources.getCoefficients(labels.length);
+    /**
+     * @return weights of the model shipped in static resources, or null if it cannot be read.
+     */
+    static Weights readBundled() {
+        LogisticRegressionModel model = new LogisticRegressionModel();
+        model.loadBundled();
+        return model.weights;
+    }
 
-        assert coefficients != null;
-        w = new Matrix(coefficients);
+    /**
+     * Load the model the user trained if there is one, or the model shipped in static resources otherwise.
+     *
+     * @param trainedModel file of the model written by {@link LogisticRegressionTrainer}.
+     */
+    void load(Path trainedModel) {
+        if (Files.exists(trainedModel)) {
+            try (FileChannel channel = FileChannel.open(trainedModel, StandardOpenOption.READ)) {
+                MouseGestureModelFormat.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN), this);
+                return;
+            } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+                LOGGER.log(Level.WARNING, "Unable to load trained mouse gesture model " + trainedModel + ", using the default model.", e);
+            }
+        }
+        loadBundled();
+    }
 
-        assert intercepts != null;
-        double[][] twoDimensionalIntercept = new double[1][intercepts.length];
-        twoDimensionalIntercept[0] = intercepts;
-        c = new Matrix(twoDimensionalIntercept);
+    /**
+     * Load the model shipped in static resources.
+     */
+    void loadBundled() {
+        ByteBuffer model = MouseGestureModelResources.getModel();
+        if (model == null) {
+            return;
+        }
 
+        try {
+            MouseGestureModelFormat.read(model, this);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            LOGGER.log(Level.WARNING, "Unable to load mouse gesture model.", e);
+        }
+    }
+
+    /**
+     * @param coefficients one row of coefficients per label.
+     * @param intercepts   one intercept per label.
+     */
+    void load(String[] labels, double[][] coefficients, double[] intercepts) {
+        int features = coefficients.length == 0 ? 0 : coefficients[0].length;
+        double[] flattened = new double[coefficients.length * features];
+        for (int row = 0; row < coefficients.length; row++) {
+            System.arraycopy(coefficients[row], 0, flattened, row * features, features);
+        }
+        load(labels, flattened, intercepts);
+    }
+
+    /**
+     * @param coefficients coefficients in row-major order, one row per label.
+     * @param intercepts   one intercept per label.
+     */
+    void load(String[] labels, double[] coefficients, double[] intercepts) {
+        if (labels.length == 0 || intercepts.length != labels.length || coefficients.length % labels.length != 0) {
+            throw new IllegalArgumentException("Model dimensions do not match " + labels.length + " labels.");
+        }
+
+        this.weights = new Weights(labels, coefficients, intercepts, coefficients.length / labels.length);
     }
 
     String predict(double[] featureValues) {
-        if (!isLoaded()) {
+        Weights current = weights;
+        if (current == null) {
             return null;
         }
 
-        double[][] values = new double[1][featureValues.length];
-        values[0] = featureValues;
-        Matrix x = new Matrix(values);
-        Matrix result = x.times(w.transpose()).plus(c);
+        String[] labels = current.labels();
+        double[] w = current.w();
+        double[] c = current.c();
+        int featureCount = current.featureCount();
+        if (featureValues.length != featureCount) {
+            throw new IllegalArgumentException("Expected " + featureCount + " features but got " + featureValues.length + ".");
+        }
 
-        double[] probabilities = result.getArray()[0];
         int maxIndex = -1;
         double maxValue = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < probabilities.length; i++) {
-            double p = probabilities[i];
-            if (p > maxValue) {
-                maxValue = p;
-                maxIndex = i;
+        for (int label = 0, offset = 0; label < labels.length; label++, offset += featureCount) {
+            double score = 0;
+            for (int i = 0; i < featureCount; i++) {
+                score += featureValues[i] * w[offset + i];
+            }
+            score += c[label];
+
+            if (score > maxValue) {
+                maxValue = score;
+                maxIndex = label;
             }
         }
 
@@ -59,9 +138,18 @@ final class LogisticRegressionModel {
     }
 
     /**
-     * @return whether model was loaded successfully.
+     * @param labels classifying classes.
+     * @param w      coefficients, labels.length rows of featureCount values.
+     * @param c      intercepts.
      */
-    private boolean isLoaded() {
-        return labels != null && w != null && c != null;
+    record Weights(String[] labels, double[] w, double[] c, int featureCount) {
+    }
+
+    private static final class DefaultModel {
+        private static final LogisticRegressionModel INSTANCE = new LogisticRegressionModel();
+
+        static {
+            INSTANCE.load(Path.of(MOUSE_GESTURE_MODEL_FILE_NAME));
+        }
     }
 }
@@ -0,0 +1,370 @@
+package core.keyChain.mouseGestureRecognition;
+
+import core.keyChain.MouseGesture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Trains the multinomial logistic regression used by {@link LogisticRegressionModel} on
+ * {@link GestureTrainingSamples}, with mini-batch gradient descent on the softmax cross entropy and L2 regularization.
+ * <p>
+ * Every batch is split into chunks, one per worker of the common fork-join pool. Each chunk accumulates the gradient of
+ * its samples into its own preallocated array, and the chunk gradients are summed once all chunks are done, so workers
+ * never share a written array. Weights are flat row-major arrays like in {@link LogisticRegressionModel}, and an epoch
+ * only allocates the chunk tasks.
+ * <p>
+ * Training starts from the model shipped in static resources. Only the gestures that have samples are trained, and the
+ * others, such as {@link MouseGesture#RANDOM} which rejects noise, keep their shipped weights, so the trained model
+ * still recognizes every built in gesture.
+ */
+public final class LogisticRegressionTrainer {
+
+    private static final int DEFAULT_EPOCHS = 300;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final double DEFAULT_LEARNING_RATE = 1.0;
+    private static final double DEFAULT_L2 = 1e-5;
+    // Below this many samples per chunk, splitting costs more than it saves.
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    private final int epochs;
+    private final int batchSize;
+    private final double learningRate;
+    private final double l2;
+    private final long seed;
+
+    private LogisticRegressionTrainer(int epochs, int batchSize, double learningRate, double l2, long seed) {
+        this.epochs = epochs;
+        this.batchSize = batchSize;
+        this.learningRate = learningRate;
+        this.l2 = l2;
+        this.seed = seed;
+    }
+
+    public static LogisticRegressionTrainer of() {
+        return new LogisticRegressionTrainer(DEFAULT_EPOCHS, DEFAULT_BATCH_SIZE, DEFAULT_LEARNING_RATE, DEFAULT_L2, 0);
+    }
+
+    /**
+     * Train a model on the samples, write it to the file and use it to classify gestures from now on.
+     *
+     * @param output file to write the model to, in the format read by {@link LogisticRegressionModel}.
+     * @return summary of the training.
+     * @throws IllegalArgumentException if there are no samples, or if the shipped model cannot be read and the samples
+     *                                  do not cover every built in gesture.
+     */
+    public Result trainAndInstall(GestureTrainingSamples samples, Path output) throws IOException {
+        long start = System.nanoTime();
+        LogisticRegressionModel.Weights base = LogisticRegressionModel.readBundled();
+        if (base != null && base.featureCount() != DataNormalizer.FEATURE_COUNT) {
+            base = null;
+        }
+        GestureTrainingSamples.Snapshot snapshot = withBaseLabels(samples.snapshot(), base);
+        Model model = train(snapshot, base);
+
+        double[][] rows = new double[model.labels.length][];
+        for (int label = 0; label < rows.length; label++) {
+            rows[label] = new double[model.featureCount];
+            System.arraycopy(model.w, label * model.featureCount, rows[label], 0, model.featureCount);
+        }
+        try (OutputStream stream = Files.newOutputStream(output)) {
+            MouseGestureModelFormat.write(model.labels, rows, model.c, stream);
+        }
+        LogisticRegressionModel.getDefault().load(model.labels, model.w, model.c);
+
+        return new Result(snapshot.size(), model.labels.length, model.accuracy(snapshot), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Delete the trained model and go back to classifying gestures with the model shipped in static resources.
+     *
+     * @param trainedModel file the trained model was written to.
+     */
+    public static void resetToBundledModel(Path trainedModel) throws IOException {
+        Files.deleteIfExists(trainedModel);
+        LogisticRegressionModel.getDefault().loadBundled();
+    }
+
+    /**
+     * @return the samples relabelled so that the labels of the base model come first, in the same order, followed by
+     * the labels only the samples have.
+     */
+    private static GestureTrainingSamples.Snapshot withBaseLabels(GestureTrainingSamples.Snapshot samples, LogisticRegressionModel.Weights base) {
+        if (base == null) {
+            return samples;
+        }
+
+        List<String> labels = new ArrayList<>(Arrays.asList(base.labels()));
+        int[] mapping = new int[samples.labels().length];
+        for (int i = 0; i < mapping.length; i++) {
+            int index = labels.indexOf(samples.labels()[i]);
+            if (index < 0) {
+                index = labels.size();
+                labels.add(samples.labels()[i]);
+            }
+            mapping[i] = index;
+        }
+        int[] sampleLabels = new int[samples.size()];
+        for (int i = 0; i < sampleLabels.length; i++) {
+            sampleLabels[i] = mapping[samples.sampleLabels()[i]];
+        }
+        return new GestureTrainingSamples.Snapshot(labels.toArray(new String[0]), sampleLabels, samples.features());
+    }
+
+    /**
+     * @param base model to start from, with the same labels first and in the same order as the samples. Labels
+     *             without samples keep their weights from it. If null, the samples must cover every built in gesture.
+     */
+    Model train(GestureTrainingSamples.Snapshot samples, LogisticRegressionModel.Weights base) {
+        String[] labels = samples.labels();
+        boolean[] trained = new boolean[labels.length];
+        for (int label : samples.sampleLabels()) {
+            trained[label] = true;
+        }
+        if (base == null) {
+            List<String> sampled = new ArrayList<>();
+            for (int label = 0; label < labels.length; label++) {
+                if (trained[label]) {
+                    sampled.add(labels[label]);
+                }
+            }
+            for (MouseGesture gesture : MouseGesture.values()) {
+                if (!sampled.contains(gesture.getName())) {
+                    throw new IllegalArgumentException("The shipped gesture model cannot be read, so samples of every built in gesture are needed to train, but there are none of " + gesture.getName() + ".");
+                }
+            }
+        } else if (samples.size() == 0) {
+            throw new IllegalArgumentException("Need samples of at least one gesture to train.");
+        }
+
+        Model model = new Model(labels, DataNormalizer.FEATURE_COUNT);
+        if (base != null) {
+            System.arraycopy(base.w(), 0, model.w, 0, base.w().length);
+            System.arraycopy(base.c(), 0, model.c, 0, base.c().length);
+        }
+        int size = samples.size();
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int batch = Math.min(batchSize, size);
+        int chunkCount = Math.max(1, Math.min(parallelism, batch / MIN_CHUNK_SIZE));
+        Gradient[] gradients = new Gradient[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            gradients[i] = new Gradient(labels.length, model.featureCount);
+        }
+
+        Random random = new Random(seed);
+        double[] gradient = new double[model.w.length];
+        double[] interceptGradient = new double[labels.length];
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            shuffle(order, random);
+            // Decay the step so that the last epochs settle instead of bouncing around the optimum.
+            double rate = learningRate / (1 + 10.0 * epoch / epochs);
+            for (int from = 0; from < size; from += batch) {
+                int to = Math.min(size, from + batch);
+                computeGradient(model, samples, order, from, to, gradients, gradient, interceptGradient);
+
+                double scale = rate / (to - from);
+                for (int label = 0, row = 0; label < labels.length; label++, row += model.featureCount) {
+                    if (!trained[label]) {
+                        continue;
+                    }
+                    for (int i = row; i < row + model.featureCount; i++) {
+                        model.w[i] -= scale * gradient[i] + rate * l2 * model.w[i];
+                    }
+                    model.c[label] -= scale * interceptGradient[label];
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Sum the gradients of the samples at order[from..to) into the output arrays, a chunk of samples per task.
+     */
+    private static void computeGradient(Model model, GestureTrainingSamples.Snapshot samples, int[] order, int from, int to,
+                                        Gradient[] gradients, double[] gradient, double[] interceptGradient) {
+        int chunks = Math.max(1, Math.min(gradients.length, (to - from) / MIN_CHUNK_SIZE));
+        Chunk[] tasks = new Chunk[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int chunkFrom = from + (int) ((long) (to - from) * i / chunks);
+            int chunkTo = from + (int) ((long) (to - from) * (i + 1) / chunks);
+            tasks[i] = new Chunk(model, samples, order, chunkFrom, chunkTo, gradients[i]);
+        }
+        if (chunks == 1) {
+            tasks[0].compute();
+        } else {
+            ForkJoinTask.invokeAll(tasks);
+        }
+
+        System.arraycopy(gradients[0].w, 0, gradient, 0, gradient.length);
+        System.arraycopy(gradients[0].c, 0, interceptGradient, 0, interceptGradient.length);
+        for (int i = 1; i < chunks; i++) {
+            double[] w = gradients[i].w;
+            for (int j = 0; j < gradient.length; j++) {
+                gradient[j] += w[j];
+            }
+            double[] c = gradients[i].c;
+            for (int j = 0; j < interceptGradient.length; j++) {
+                interceptGradient[j] += c[j];
+            }
+        }
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /**
+     * Summary of a training run.
+     *
+     * @param samples  number of samples trained on.
+     * @param labels   number of gestures the model classifies.
+     * @param accuracy fraction of the samples the trained model classifies correctly.
+     * @param millis   time taken to train and write the model.
+     */
+    public record Result(int samples, int labels, double accuracy, long millis) {
+    }
+
+    /**
+     * Weights being trained, laid out like in {@link LogisticRegressionModel}.
+     */
+    static final class Model {
+        private final String[] labels;
+        private final int featureCount;
+        private final double[] w;
+        private final double[] c;
+
+        private Model(String[] labels, int featureCount) {
+            this.labels = labels;
+            this.featureCount = featureCount;
+            this.w = new double[labels.length * featureCount];
+            this.c = new double[labels.length];
+        }
+
+        /**
+         * Compute the score of every label for the features starting at the offset.
+         */
+        private void scores(double[] features, int offset, double[] output) {
+            for (int label = 0, row = 0; label < labels.length; label++, row += featureCount) {
+                double score = c[label];
+                for (int i = 0; i < featureCount; i++) {
+                    score += features[offset + i] * w[row + i];
+                }
+                output[label] = score;
+            }
+        }
+
+        double accuracy(GestureTrainingSamples.Snapshot samples) {
+            double[] scores = new double[labels.length];
+            int correct = 0;
+            for (int sample = 0; sample < samples.size(); sample++) {
+                scores(samples.features(), sample * featureCount, scores);
+                int best = 0;
+                for (int label = 1; label < scores.length; label++) {
+                    if (scores[label] > scores[best]) {
+                        best = label;
+                    }
+                }
+                if (best == samples.sampleLabels()[sample]) {
+                    correct++;
+                }
+            }
+            return samples.size() == 0 ? 0 : (double) correct / samples.size();
+        }
+    }
+
+    /**
+     * Gradient accumulated by one chunk, reused across batches.
+     */
+    private static final class Gradient {
+        private final double[] w;
+        private final double[] c;
+        private final double[] probabilities;
+
+        private Gradient(int labelCount, int featureCount) {
+            this.w = new double[labelCount * featureCount];
+            this.c = new double[labelCount];
+            this.probabilities = new double[labelCount];
+        }
+    }
+
+    @SuppressWarnings("serial") // Never serialized, only run in the fork-join pool.
+    private static final class Chunk extends RecursiveAction {
+        private final Model model;
+        private final GestureTrainingSamples.Snapshot samples;
+        private final int[] order;
+        private final int from;
+        private final int to;
+        private final Gradient gradient;
+
+        private Chunk(Model model, GestureTrainingSamples.Snapshot samples, int[] order, int from, int to, Gradient gradient) {
+            this.model = model;
+            this.samples = samples;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.gradient = gradient;
+        }
+
+        @Override
+        protected void compute() {
+            double[] w = gradient.w;
+            double[] c = gradient.c;
+            double[] p = gradient.probabilities;
+            Arrays.fill(w, 0);
+            Arrays.fill(c, 0);
+
+            int featureCount = model.featureCount;
+            double[] features = samples.features();
+            for (int i = from; i < to; i++) {
+                int sample = order[i];
+                int offset = sample * featureCount;
+                model.scores(features, offset, p);
+                softmax(p);
+                p[samples.sampleLabels()[sample]] -= 1;
+
+                // Gradient of the cross entropy with respect to the scores is the probabilities minus the one hot label.
+                for (int label = 0, row = 0; label < p.length; label++, row += featureCount) {
+                    double error = p[label];
+                    c[label] += error;
+                    for (int f = 0; f < featureCount; f++) {
+                        w[row + f] += error * features[offset + f];
+                    }
+                }
+            }
+        }
+
+        private static void softmax(double[] scores) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (double score : scores) {
+                max = Math.max(max, score);
+            }
+            double sum = 0;
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Math.exp(scores[i] - max);
+                sum += scores[i];
+            }
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= sum;
+            }
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package core.keyChain.mouseGestureRecognition;
 
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,48 +10,46 @@ import core.keyChain.MouseGesture;
  *
  * @author HP Truong
  */
-public final class MouseGestureClassifier {
+public final class MouseGestureClassifier implements GestureRecognizer {
 
 	private static final Logger LOGGER = Logger.getLogger(MouseGestureClassifier.class.getName());
 
-	private final LogisticRegressionModel logisticRegressionModel;
+	// Reused for every classification, so calls must not overlap.
+	private final DataNormalizer normalizer;
+	private final double[] features;
 
 	public MouseGestureClassifier() {
-		logisticRegressionModel = new LogisticRegressionModel();
-		logisticRegressionModel.load();
+		normalizer = new DataNormalizer();
+		features = new double[DataNormalizer.FEATURE_COUNT];
 	}
 
 	/**
-	 * Classify the mouse gesture given an {@link Queue} of points.
-	 * At the end of the method, the number of points considered during classification
-	 * will be removed from the queue.
+	 * @return the classified gesture, which is {@link MouseGesture#RANDOM} when the points match no other gesture, so
+	 * that actions bound to random still fire. This never returns null, so this recognizer must be tried last.
+	 */
+	@Override
+	public MouseGesture recognize(GesturePointBuffer points) {
+		return classifyGesture(points);
+	}
+
+	/**
+	 * Classify the mouse gesture given a buffer of points.
 	 *
-	 * @param points a {@link Queue} of points ordered chronologically.
-	 * @param size the number of points to be considered in the queue.
+	 * @param points the recorded points ordered chronologically.
 	 * @return the mouse gesture classified by the model.
 	 */
-	public MouseGesture classifyGesture(Queue<Point> points, int size) {
-		if (size < DataNormalizer.POINT_COUNT) {
-			LOGGER.log(Level.FINE, "Not enough points for classification. "
-					+ "Required at least {0} points but provided {1} points.",
-					new Object[] {DataNormalizer.POINT_COUNT, size});
+	public MouseGesture classifyGesture(GesturePointBuffer points) {
+		int size = points.size();
+		if (!normalizer.normalize(points, features)) {
+			if (LOGGER.isLoggable(Level.FINE)) {
+				LOGGER.log(Level.FINE, "Not enough points for classification. "
+						+ "Required at least {0} points but provided {1} points.",
+						new Object[] {DataNormalizer.POINT_COUNT, size});
+			}
 			return MouseGesture.RANDOM;
 		}
 
-		ArrayList<Point> input = new ArrayList<>(size);
-		for (int i = 0; i < size; i++) {
-			input.add(points.poll());
-		}
-
-		ArrayList<Float> normalized = new DataNormalizer().normalize(input);
-
-		double[] normalizedArray = new double[normalized.size()];
-		int index = 0;
-		for (Float f : normalized) {
-			normalizedArray[index++] = f;
-		}
-
-		String prediction = logisticRegressionModel.predict(normalizedArray);
+		String prediction = LogisticRegressionModel.getDefault().predict(features);
 		if (prediction == null) {
 			return MouseGesture.RANDOM;
 		}
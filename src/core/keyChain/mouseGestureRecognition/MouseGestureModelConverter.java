@@ -0,0 +1,42 @@
+package core.keyChain.mouseGestureRecognition;
+
+import staticResources.MouseGestureModelResources;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts the text mouse gesture model resources into the binary {@link MouseGestureModelFormat}.
+ * <p>
+ * Run the main method with the static content on the class path, passing the output file, e.g.
+ * src/staticContent/mouseGestureModel/model.bin.
+ */
+final class MouseGestureModelConverter {
+
+    private MouseGestureModelConverter() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: MouseGestureModelConverter <output file>");
+            System.exit(1);
+        }
+
+        String[] labels = MouseGestureModelResources.getLabels();
+        double[] intercepts = MouseGestureModelResources.getIntercepts();
+        double[][] coefficients = MouseGestureModelResources.getCoefficients(labels.length);
+        if (intercepts == null || coefficients == null) {
+            throw new IllegalStateException("Unable to parse text mouse gesture model.");
+        }
+
+        Path output = Path.of(args[0]);
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output))) {
+            MouseGestureModelFormat.write(labels, coefficients, intercepts, stream);
+        }
+        System.out.println("Wrote " + labels.length + " labels x " + coefficients[0].length + " features to " + output + ".");
+    }
+}
@@ -0,0 +1,110 @@
+package core.keyChain.mouseGestureRecognition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary format of the mouse gesture model. All values are little endian.
+ * <pre>
+ * int    magic, {@link #MAGIC}
+ * int    version, {@link #VERSION}
+ * int    label count L
+ * int    feature count F
+ * L x    (int byte length, UTF-8 bytes) label
+ * L x    float intercept
+ * L x F  float coefficient, one row of F per label
+ * </pre>
+ * Values are stored in single precision, which is the precision the model was trained and exported in.
+ */
+final class MouseGestureModelFormat {
+
+    static final int MAGIC = 0x4D475052; // "RPGM" when read as little endian bytes.
+    static final int VERSION = 1;
+
+    private MouseGestureModelFormat() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    /**
+     * Read a model from the buffer into the given model.
+     *
+     * @param buffer little endian buffer positioned at the start of the model.
+     * @throws IllegalArgumentException if the buffer does not hold a supported model.
+     */
+    static void read(ByteBuffer buffer, LogisticRegressionModel model) {
+        buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 4 * Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a mouse gesture model.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported mouse gesture model version " + version + ".");
+        }
+
+        int labelCount = buffer.getInt();
+        int featureCount = buffer.getInt();
+        if (labelCount < 1 || featureCount < 1) {
+            throw new IllegalArgumentException("Invalid model dimensions " + labelCount + " x " + featureCount + ".");
+        }
+
+        String[] labels = new String[labelCount];
+        for (int i = 0; i < labelCount; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            labels[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        double[] intercepts = new double[labelCount];
+        for (int i = 0; i < labelCount; i++) {
+            intercepts[i] = buffer.getFloat();
+        }
+
+        double[] coefficients = new double[labelCount * featureCount];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = buffer.getFloat();
+        }
+
+        model.load(labels, coefficients, intercepts);
+    }
+
+    /**
+     * Write a model in this format.
+     *
+     * @param coefficients one row of coefficients per label.
+     * @param intercepts   one intercept per label.
+     */
+    static void write(String[] labels, double[][] coefficients, double[] intercepts, OutputStream output) throws IOException {
+        if (coefficients.length != labels.length || intercepts.length != labels.length) {
+            throw new IllegalArgumentException("Expected " + labels.length + " rows of coefficients and intercepts.");
+        }
+        int featureCount = coefficients.length == 0 ? 0 : coefficients[0].length;
+
+        byte[][] encodedLabels = new byte[labels.length][];
+        int size = 4 * Integer.BYTES + labels.length * (Integer.BYTES + Float.BYTES * (1 + featureCount));
+        for (int i = 0; i < labels.length; i++) {
+            encodedLabels[i] = labels[i].getBytes(StandardCharsets.UTF_8);
+            size += encodedLabels[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(labels.length).putInt(featureCount);
+        for (byte[] label : encodedLabels) {
+            buffer.putInt(label.length).put(label);
+        }
+        for (double intercept : intercepts) {
+            buffer.putFloat((float) intercept);
+        }
+        for (double[] row : coefficients) {
+            if (row.length != featureCount) {
+                throw new IllegalArgumentException("Expected " + featureCount + " coefficients per row but got " + row.length + ".");
+            }
+            for (double coefficient : row) {
+                buffer.putFloat((float) coefficient);
+            }
+        }
+        output.write(buffer.array());
+    }
+}
@@ -0,0 +1,502 @@
+package core.keyChain.mouseGestureRecognition;
+
+import argo.jdom.JsonNode;
+import argo.jdom.JsonNodeFactories;
+import argo.jdom.JsonRootNode;
+import core.keyChain.MouseGesture;
+import utilities.json.IJsonable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Recognizes custom gestures recorded by the user, by matching against stored templates with the $P point cloud
+ * recognizer (Vatavu, Anthony and Wobbrock, 2012).
+ * <p>
+ * Recordings are resampled to {@value #SAMPLES} equidistant points, scaled uniformly to fit a unit box and centered
+ * on their centroid. Templates are stored in that form. The distance between two clouds is a weighted greedy
+ * matching of their points, tried from a few starting points in both directions.
+ * <p>
+ * Each template keeps a grid over the plane, storing for every cell a lower bound of the distance from any point in
+ * the cell to the template. Looking up the cells of the query points gives a lower bound of the matching distance
+ * for a template in a few array reads. Templates are then visited in order of their lower bounds, stopping as soon as
+ * a lower bound exceeds the best distance found. A visited template first gets the tighter bound of the exact nearest
+ * neighbour distances, and a matching is abandoned as soon as its distance plus the bounds of the points left
+ * exceeds the best distance. Most templates are therefore never matched in full.
+ * <p>
+ * Templates are an immutable snapshot swapped on change, so they may be edited from any thread.
+ * {@link #recognize(GesturePointBuffer)} reuses internal buffers and must not be called concurrently.
+ */
+public final class PointCloudRecognizer implements GestureRecognizer, IJsonable {
+
+    private static final Logger LOGGER = Logger.getLogger(PointCloudRecognizer.class.getName());
+
+    static final int SAMPLES = 32;
+    private static final int STEP = (int) Math.floor(Math.pow(SAMPLES, 0.5));
+    private static final int GRID = 32;
+    private static final double GRID_MIN = -1;
+    private static final double CELL_SIZE = 2.0 / GRID;
+    /**
+     * Sum of the matching weights, used to turn a cloud distance into the mean distance of a point.
+     */
+    private static final double WEIGHT_SUM = (SAMPLES + 1) / 2.0;
+    /**
+     * Largest mean distance between matched points, in units of the gesture size, for a template to be recognized.
+     */
+    private static final double MAX_MEAN_DISTANCE = 0.12;
+
+    private volatile Template[] templates;
+
+    // Buffers reused across calls to recognize().
+    private double[] rawX, rawY;
+    private final double[] queryX, queryY;
+    private final int[] queryCells;
+    private final double[] queryCellBounds;
+    private final double[] queryBounds, templateBounds, sorted, remaining;
+    private final double[] distances;
+    private final boolean[] matched;
+    private long[] order;
+
+    public PointCloudRecognizer() {
+        templates = new Template[0];
+        rawX = new double[0];
+        rawY = new double[0];
+        queryX = new double[SAMPLES];
+        queryY = new double[SAMPLES];
+        queryCells = new int[SAMPLES];
+        queryCellBounds = new double[GRID * GRID];
+        queryBounds = new double[SAMPLES];
+        templateBounds = new double[SAMPLES];
+        sorted = new double[SAMPLES];
+        remaining = new double[SAMPLES + 1];
+        distances = new double[SAMPLES * SAMPLES];
+        matched = new boolean[SAMPLES];
+        order = new long[0];
+    }
+
+    @Override
+    public MouseGesture recognize(GesturePointBuffer points) {
+        Template[] current = templates;
+        if (current.length == 0 || !normalize(points, queryX, queryY)) {
+            return null;
+        }
+
+        for (int i = 0; i < SAMPLES; i++) {
+            queryCells[i] = cellOf(queryX[i], queryY[i]);
+        }
+        fillCellBounds(queryX, queryY, queryCellBounds);
+
+        if (order.length < current.length) {
+            order = new long[current.length];
+        }
+        for (int t = 0; t < current.length; t++) {
+            order[t] = ((long) Float.floatToIntBits(roundDown(cellLowerBound(current[t]))) << 32) | t;
+        }
+        Arrays.sort(order, 0, current.length);
+
+        double best = MAX_MEAN_DISTANCE * WEIGHT_SUM;
+        Template recognized = null;
+        for (int i = 0; i < current.length; i++) {
+            if (Float.intBitsToFloat((int) (order[i] >>> 32)) >= best) {
+                break;
+            }
+
+            Template template = current[(int) order[i]];
+            if (pointLowerBound(template) >= best) {
+                continue;
+            }
+            double distance = greedyMatch(best);
+            if (distance < best) {
+                best = distance;
+                recognized = template;
+            }
+        }
+
+        return recognized == null ? null : MouseGesture.custom(recognized.name());
+    }
+
+    /**
+     * Store the recorded points as a template of the custom gesture with the given name.
+     *
+     * @return whether the template was added, or false if the points do not make a gesture.
+     */
+    public synchronized boolean addTemplate(String name, GesturePointBuffer points) {
+        double[] xs = new double[SAMPLES];
+        double[] ys = new double[SAMPLES];
+        if (!normalize(points, xs, ys)) {
+            return false;
+        }
+
+        Template[] updated = Arrays.copyOf(templates, templates.length + 1);
+        updated[templates.length] = Template.of(name, xs, ys);
+        templates = updated;
+        return true;
+    }
+
+    /**
+     * Remove all templates of the custom gesture with the given name.
+     *
+     * @return whether any template was removed.
+     */
+    public synchronized boolean removeTemplates(String name) {
+        Template[] updated = Arrays.stream(templates).filter(t -> !t.name().equals(name)).toArray(Template[]::new);
+        boolean removed = updated.length != templates.length;
+        templates = updated;
+        return removed;
+    }
+
+    /**
+     * @return names of the custom gestures with at least one template, in alphabetical order.
+     */
+    public List<String> getGestureNames() {
+        TreeSet<String> names = new TreeSet<>();
+        for (Template template : templates) {
+            names.add(template.name());
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * @return number of templates recorded for the custom gesture with the given name.
+     */
+    public int getTemplateCount(String name) {
+        int count = 0;
+        for (Template template : templates) {
+            if (template.name().equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replace all templates with the ones in the json list.
+     */
+    public synchronized void parseJSON(List<JsonNode> nodes) {
+        List<Template> parsed = new ArrayList<>();
+        for (JsonNode node : nodes) {
+            try {
+                List<JsonNode> values = node.getArrayNode("points");
+                if (values.size() != SAMPLES * 2) {
+                    LOGGER.warning("Ignoring custom gesture template with " + values.size() + " coordinates.");
+                    continue;
+                }
+
+                double[] xs = new double[SAMPLES];
+                double[] ys = new double[SAMPLES];
+                for (int i = 0; i < SAMPLES; i++) {
+                    xs[i] = Double.parseDouble(values.get(2 * i).getNumberValue());
+                    ys[i] = Double.parseDouble(values.get(2 * i + 1).getNumberValue());
+                }
+                parsed.add(Template.of(node.getStringValue("name"), xs, ys));
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Unable to parse custom gesture template.", e);
+            }
+        }
+        templates = parsed.toArray(new Template[0]);
+    }
+
+    @Override
+    public JsonRootNode jsonize() {
+        List<JsonNode> output = new ArrayList<>();
+        for (Template template : templates) {
+            List<JsonNode> values = new ArrayList<>(SAMPLES * 2);
+            for (int i = 0; i < SAMPLES; i++) {
+                values.add(JsonNodeFactories.number(Double.toString(template.xs()[i])));
+                values.add(JsonNodeFactories.number(Double.toString(template.ys()[i])));
+            }
+            output.add(JsonNodeFactories.object(
+                    JsonNodeFactories.field("name", JsonNodeFactories.string(template.name())),
+                    JsonNodeFactories.field("points", JsonNodeFactories.array(values))));
+        }
+        return JsonNodeFactories.array(output);
+    }
+
+    /**
+     * Resample the points, scale them to a unit box and center them on their centroid.
+     *
+     * @return whether the output was filled, or false if the points do not span any distance.
+     */
+    private boolean normalize(GesturePointBuffer points, double[] xs, double[] ys) {
+        int size = points.size();
+        if (size < 2) {
+            return false;
+        }
+        if (rawX.length < size) {
+            rawX = new double[size];
+            rawY = new double[size];
+        }
+        for (int i = 0; i < size; i++) {
+            rawX[i] = points.getX(i);
+            rawY[i] = points.getY(i);
+        }
+        return normalize(rawX, rawY, size, xs, ys);
+    }
+
+    static boolean normalize(double[] inputX, double[] inputY, int size, double[] xs, double[] ys) {
+        double length = 0;
+        for (int i = 1; i < size; i++) {
+            length += Math.hypot(inputX[i] - inputX[i - 1], inputY[i] - inputY[i - 1]);
+        }
+        if (length == 0) {
+            return false;
+        }
+
+        resample(inputX, inputY, size, length / (SAMPLES - 1), xs, ys);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < SAMPLES; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        double scale = Math.max(maxX - minX, maxY - minY);
+
+        double centerX = 0, centerY = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            xs[i] = (xs[i] - minX) / scale;
+            ys[i] = (ys[i] - minY) / scale;
+            centerX += xs[i];
+            centerY += ys[i];
+        }
+        centerX /= SAMPLES;
+        centerY /= SAMPLES;
+        for (int i = 0; i < SAMPLES; i++) {
+            xs[i] -= centerX;
+            ys[i] -= centerY;
+        }
+        return true;
+    }
+
+    /**
+     * Walk the path and emit a point every interval along it.
+     */
+    private static void resample(double[] inputX, double[] inputY, int size, double interval, double[] xs, double[] ys) {
+        xs[0] = inputX[0];
+        ys[0] = inputY[0];
+        int count = 1;
+        double previousX = inputX[0], previousY = inputY[0];
+        double walked = 0;
+        for (int i = 1; i < size && count < SAMPLES; i++) {
+            double segment = Math.hypot(inputX[i] - previousX, inputY[i] - previousY);
+            if (walked + segment >= interval && segment > 0) {
+                double ratio = (interval - walked) / segment;
+                double x = previousX + ratio * (inputX[i] - previousX);
+                double y = previousY + ratio * (inputY[i] - previousY);
+                xs[count] = x;
+                ys[count] = y;
+                count++;
+                // The new point starts the next segment, so the current input point is visited again.
+                previousX = x;
+                previousY = y;
+                walked = 0;
+                i--;
+            } else {
+                walked += segment;
+                previousX = inputX[i];
+                previousY = inputY[i];
+            }
+        }
+        // Rounding may leave the last points short of the end of the path.
+        for (; count < SAMPLES; count++) {
+            xs[count] = inputX[size - 1];
+            ys[count] = inputY[size - 1];
+        }
+    }
+
+    /**
+     * Lower bound of {@link #greedyMatch(double)} from the grid: each point is at least its cell's bound away
+     * from the other cloud, and the weighted sum of these is smallest when the largest weights go to the smallest
+     * distances.
+     */
+    private double cellLowerBound(Template template) {
+        for (int i = 0; i < SAMPLES; i++) {
+            queryBounds[i] = template.cellBounds()[queryCells[i]];
+            templateBounds[i] = queryCellBounds[template.cells()[i]];
+        }
+        return Math.min(weightedSortedSum(queryBounds), weightedSortedSum(templateBounds));
+    }
+
+    /**
+     * Fill the squared distances between every pair of points, and tighten the cell bounds into the exact distance
+     * from each point to the nearest point of the other cloud.
+     *
+     * @return lower bound of {@link #greedyMatch(double)}, at least as large as the cell lower bound.
+     */
+    private double pointLowerBound(Template template) {
+        double[] xs = template.xs();
+        double[] ys = template.ys();
+        Arrays.fill(templateBounds, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < SAMPLES; i++) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < SAMPLES; j++) {
+                double dx = queryX[i] - xs[j];
+                double dy = queryY[i] - ys[j];
+                double d = dx * dx + dy * dy;
+                distances[i * SAMPLES + j] = d;
+                if (d < min) {
+                    min = d;
+                }
+                if (d < templateBounds[j]) {
+                    templateBounds[j] = d;
+                }
+            }
+            queryBounds[i] = Math.sqrt(min);
+        }
+        for (int j = 0; j < SAMPLES; j++) {
+            templateBounds[j] = Math.sqrt(templateBounds[j]);
+        }
+        return Math.min(weightedSortedSum(queryBounds), weightedSortedSum(templateBounds));
+    }
+
+    private double weightedSortedSum(double[] values) {
+        // Insertion sort, as the values are few and Arrays.sort costs more than the sorting itself here.
+        for (int i = 0; i < SAMPLES; i++) {
+            double value = values[i];
+            int j = i;
+            for (; j > 0 && sorted[j - 1] > value; j--) {
+                sorted[j] = sorted[j - 1];
+            }
+            sorted[j] = value;
+        }
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += weight(i) * sorted[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Match the query against the template whose distances were filled by {@link #pointLowerBound(Template)}.
+     */
+    private double greedyMatch(double best) {
+        for (int start = 0; start < SAMPLES; start += STEP) {
+            best = Math.min(best, cloudDistance(queryBounds, SAMPLES, 1, start, best));
+            best = Math.min(best, cloudDistance(templateBounds, 1, SAMPLES, start, best));
+        }
+        return best;
+    }
+
+    /**
+     * Match each point of one cloud to the nearest unmatched point of the other, starting from the given point.
+     * The squared distance between the i-th point of the first cloud and the j-th point of the second is
+     * {@code distances[i * rowStride + j * columnStride]}, so that both directions read the same matrix.
+     *
+     * @param pointBounds lower bound of the distance from each point of the first cloud to the second cloud.
+     * @param bound       the matching is abandoned once its distance is known to reach this value, counting the
+     *                    bounds of the points not matched yet.
+     */
+    private double cloudDistance(double[] pointBounds, int rowStride, int columnStride, int start, double bound) {
+        remaining[SAMPLES] = 0;
+        for (int k = SAMPLES - 1; k >= 0; k--) {
+            remaining[k] = remaining[k + 1] + weight(k) * pointBounds[(start + k) % SAMPLES];
+        }
+        if (remaining[0] >= bound) {
+            return remaining[0];
+        }
+
+        Arrays.fill(matched, false);
+        double sum = 0;
+        for (int k = 0; k < SAMPLES; k++) {
+            int row = (start + k) % SAMPLES * rowStride;
+            double min = Double.POSITIVE_INFINITY;
+            int index = -1;
+            for (int j = 0; j < SAMPLES; j++) {
+                double d = distances[row + j * columnStride];
+                if (!matched[j] && d < min) {
+                    min = d;
+                    index = j;
+                }
+            }
+            matched[index] = true;
+            sum += weight(k) * Math.sqrt(min);
+            if (sum + remaining[k + 1] >= bound) {
+                return sum + remaining[k + 1];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return weight of the k-th point matched, decreasing from 1 as fewer points remain to choose from.
+     */
+    private static double weight(int k) {
+        return 1 - (double) k / SAMPLES;
+    }
+
+    private static int cellOf(double x, double y) {
+        return cellIndex(y) * GRID + cellIndex(x);
+    }
+
+    private static int cellIndex(double value) {
+        int index = (int) Math.floor((value - GRID_MIN) / CELL_SIZE);
+        return Math.max(0, Math.min(GRID - 1, index));
+    }
+
+    /**
+     * For every grid cell, store the smallest distance from the cell to any of the points. Cells on the border of
+     * the grid extend to infinity, so that the bound holds for points outside the grid.
+     */
+    private static void fillCellBounds(double[] xs, double[] ys, double[] output) {
+        // The distance along each axis only depends on the row or on the column, so it is computed once per line.
+        double[] columnDistances = axisDistances(xs);
+        double[] rowDistances = axisDistances(ys);
+        for (int row = 0; row < GRID; row++) {
+            for (int column = 0; column < GRID; column++) {
+                double min = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < SAMPLES; i++) {
+                    double distance = columnDistances[column * SAMPLES + i] + rowDistances[row * SAMPLES + i];
+                    if (distance < min) {
+                        min = distance;
+                    }
+                }
+                output[row * GRID + column] = Math.sqrt(min);
+            }
+        }
+    }
+
+    /**
+     * @return squared distance from each line of cells along an axis to each of the values, line by line.
+     */
+    private static double[] axisDistances(double[] values) {
+        double[] output = new double[GRID * SAMPLES];
+        for (int line = 0; line < GRID; line++) {
+            double min = line == 0 ? Double.NEGATIVE_INFINITY : GRID_MIN + line * CELL_SIZE;
+            double max = line == GRID - 1 ? Double.POSITIVE_INFINITY : GRID_MIN + (line + 1) * CELL_SIZE;
+            for (int i = 0; i < SAMPLES; i++) {
+                double distance = Math.max(0, Math.max(min - values[i], values[i] - max));
+                output[line * SAMPLES + i] = distance * distance;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * @return the float closest to the value that is not larger than it, so that it stays a lower bound.
+     */
+    private static float roundDown(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    /**
+     * A normalized template with its grid of distance bounds and the grid cell of each of its points.
+     */
+    private record Template(String name, double[] xs, double[] ys, double[] cellBounds, int[] cells) {
+        private static Template of(String name, double[] xs, double[] ys) {
+            double[] cellBounds = new double[GRID * GRID];
+            fillCellBounds(xs, ys, cellBounds);
+            int[] cells = new int[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                cells[i] = cellOf(xs[i], ys[i]);
+            }
+            return new Template(name, xs, ys, cellBounds, cells);
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package core.recorder;
 
+import core.controller.CancellationToken;
 import core.controller.Core;
 import core.languageHandler.Language;
 import core.languageHandler.sourceGenerator.AbstractSourceGenerator;
@@ -194,7 +195,7 @@ public final class Recorder {
 
         if (blocking && time > 0) {
             try {
-                Thread.sleep(time);
+                CancellationToken.sleepCurrent(time);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
@@ -1,8 +1,10 @@
 package core.recorder;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import core.controller.CancellationToken;
 import utilities.Function;
 import core.scheduler.AbstractScheduler;
 import core.scheduler.SchedulingData;
@@ -10,12 +12,14 @@ import core.scheduler.SchedulingData;
 final class TaskScheduler extends AbstractScheduler<Runnable> {
 
 	private static final Logger LOGGER = Logger.getLogger(TaskScheduler.class.getName());
+	private static final long HALT_TIMEOUT_MS = 500;
 
 	static {
 		LOGGER.setLevel(Level.INFO);
 	}
 
 	private Thread executeAgent;
+	private CancellationToken token;
 	private boolean isRunning;
 
 	TaskScheduler() {
@@ -39,7 +43,9 @@ final class TaskScheduler extends AbstractScheduler<Runnable> {
 		}
 
 		isRunning = true;
+		final CancellationToken token = new CancellationToken();
 		Runnable running = () -> {
+            token.bind();
             for (long i = 0; i < count; i++) {
                 long time = 0;
                 for (SchedulingData<Runnable> t : tasks) {
@@ -51,7 +57,7 @@ final class TaskScheduler extends AbstractScheduler<Runnable> {
                     }
 
                     try {
-                        Thread.sleep((long)((currentTime - time) / speedup));
+                        token.sleep((long)((currentTime - time) / speedup));
                     } catch (InterruptedException e) {
                         LOGGER.info("Ended prematurely");
                         return; // Ended prematurely
@@ -63,7 +69,7 @@ final class TaskScheduler extends AbstractScheduler<Runnable> {
 
                 if (delay > 0) {
                     try {
-                        Thread.sleep((long)(delay / speedup));
+                        token.sleep((long)(delay / speedup));
                     } catch (InterruptedException e) {
                         LOGGER.info("Ended prematurely");
                         return; // Ended prematurely
@@ -73,13 +79,14 @@ final class TaskScheduler extends AbstractScheduler<Runnable> {
 
             if (callBack != null && callBackDelay > 0) {
                 try {
-                    Thread.sleep((long)(callBackDelay / speedup));
+                    token.sleep((long)(callBackDelay / speedup));
                 } catch (InterruptedException e) {
                     return; // Ended prematurely
                 }
                 callBack.apply(null);
             }
         };
+		this.token = token;
 		executeAgent = new Thread(running);
 		executeAgent.start();
 
@@ -94,8 +101,11 @@ final class TaskScheduler extends AbstractScheduler<Runnable> {
 	synchronized void halt() {
 		if (isRunning) {
 			if (Thread.currentThread() != executeAgent) {
-				while (executeAgent.isAlive()) {
-					executeAgent.interrupt();
+				token.cancel();
+				executeAgent.interrupt();
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HALT_TIMEOUT_MS);
+				if (!CancellationToken.join(executeAgent, deadline)) {
+					LOGGER.warning("Abandoning replay thread which did not end within " + HALT_TIMEOUT_MS + "ms.");
 				}
 			}
 
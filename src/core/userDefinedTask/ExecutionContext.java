@@ -3,9 +3,14 @@ package core.userDefinedTask;
 import core.controller.Core;
 import core.keyChain.ActionInvoker;
 
+/**
+ * Immutable description of one execution of a task: what triggered it, and the controller it runs with.
+ * Each execution gets its own context, so concurrent executions of the same task never share it.
+ */
 public final class ExecutionContext {
     private Core controller;
     private ActionInvoker activation;
+    private long eventNanos;
 
     private ExecutionContext() {
     }
@@ -18,9 +23,17 @@ public final class ExecutionContext {
         return controller;
     }
 
+    /**
+     * @return {@link System#nanoTime()} of the event that triggered this execution.
+     */
+    public long getEventNanos() {
+        return eventNanos;
+    }
+
     public static final class Builder {
         private Core controller;
         private ActionInvoker activation;
+        private long eventNanos = System.nanoTime();
 
         public static Builder of() {
             return new Builder();
@@ -36,10 +49,16 @@ public final class ExecutionContext {
             return this;
         }
 
+        public Builder setEventNanos(long eventNanos) {
+            this.eventNanos = eventNanos;
+            return this;
+        }
+
         public ExecutionContext build() {
             ExecutionContext result = new ExecutionContext();
             result.controller = controller;
-            result.activation = activation;
+            result.activation = activation == null ? ActionInvoker.newBuilder().build() : activation;
+            result.eventNanos = eventNanos;
             return result;
         }
     }
@@ -124,30 +124,18 @@ public final class TaskGroup implements IJsonable {
             return;
         }
         if (enabled) {
-            for (UserDefinedAction task : tasks) {
-                if (task.isEnabled()) {
-                    Set<UserDefinedAction> collisions = keyManager.isTaskRegistered(task);
-                    if (collisions.isEmpty()) {
-                        keyManager.registerTask(task);
-                    } else { // Revert everything and exit
-                        unregisterAll(keyManager);
-                        GlobalEventsManager.showCollisionWarning(collisions);
-                        return;
-                    }
-                }
+            List<UserDefinedAction> toRegister = tasks.stream().filter(UserDefinedAction::isEnabled).toList();
+            Set<UserDefinedAction> collisions = keyManager.registerAll(toRegister);
+            if (!collisions.isEmpty()) { // Nothing was registered.
+                GlobalEventsManager.showCollisionWarning(collisions);
+                return;
             }
         } else {
-            unregisterAll(keyManager);
+            keyManager.unregisterAll(tasks);
         }
         setEnabled(enabled);
     }
 
-    private void unregisterAll(GlobalEventsManager keyManager) {
-        for (UserDefinedAction task : tasks) {
-            keyManager.unregisterTask(task);
-        }
-    }
-
     @Override
     public JsonRootNode jsonize() {
         List<JsonNode> taskNodes = new ArrayList<>();
@@ -9,6 +9,7 @@ import core.keyChain.ActionInvoker;
 import core.languageHandler.Language;
 import core.languageHandler.compiler.Compiler;
 import core.languageHandler.compiler.DynamicCompilerManager;
+import core.userDefinedTask.internals.ConcurrencyPolicy;
 import core.userDefinedTask.internals.TaskSourceHistory;
 import core.userDefinedTask.internals.TaskSourceHistoryEntry;
 import core.userDefinedTask.internals.preconditions.TaskExecutionPreconditions;
@@ -29,12 +30,12 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
     String actionId;
     String name;
     private String sourcePath;
-    private ActionInvoker invoker;
     private boolean enabled;
     private UsageStatistics statistics;
     private TaskSourceHistory sourceHistory;
     private TaskExecutionPreconditions executionPreconditions;
     private ActionInvoker activation;
+    private ConcurrencyPolicy concurrencyPolicy;
 
     public UserDefinedAction() {
         this(UUID.randomUUID().toString());
@@ -44,7 +45,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
         this.actionId = actionId;
         executionPreconditions = TaskExecutionPreconditions.defaultConditions();
         activation = ActionInvoker.newBuilder().build();
-        invoker = ActionInvoker.newBuilder().build();
+        concurrencyPolicy = ConcurrencyPolicy.DEFAULT;
         statistics = new UsageStatistics();
         sourceHistory = new TaskSourceHistory();
         enabled = true;
@@ -126,6 +127,14 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
             }
 
             boolean enabled = node.getBooleanValue("enabled");
+            ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.DEFAULT;
+            if (node.isStringValue("concurrency_policy")) {
+                concurrencyPolicy = ConcurrencyPolicy.forValue(node.getStringValue("concurrency_policy"));
+                if (concurrencyPolicy == null) {
+                    LOGGER.warning("Unknown concurrency policy " + node.getStringValue("concurrency_policy") + " for task " + name + ".");
+                    concurrencyPolicy = ConcurrencyPolicy.DEFAULT;
+                }
+            }
 
             output.actionId = actionId;
             output.sourcePath = sourcePath;
@@ -134,6 +143,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
             output.executionPreconditions = executionPreconditions;
             output.activation = activation;
             output.enabled = enabled;
+            output.concurrencyPolicy = concurrencyPolicy;
 
             return output;
         } catch (Exception e) {
@@ -153,12 +163,12 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
     /**
      * Perform the action and track the statistics related to this action.
      *
-     * @param controller See {@link core.controller.Core} class.
+     * @param context context of this execution, including the activation that triggered it.
      * @throws InterruptedException
      */
-    public final void trackedAction(Core controller) throws InterruptedException {
-        String executionId = statistics.useNow(ExecutionContext.Builder.of().setActivation(invoker).setController(controller).build());
-        action(controller);
+    public final void trackedAction(ExecutionContext context) throws InterruptedException {
+        String executionId = statistics.useNow(context);
+        action(context.getController());
         statistics.executionFinished(executionId);
     }
 
@@ -240,6 +250,17 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
         this.enabled = enabled;
     }
 
+    /**
+     * @return what happens when this action is started while a previous execution of it is still running.
+     */
+    public final ConcurrencyPolicy getConcurrencyPolicy() {
+        return concurrencyPolicy;
+    }
+
+    public final void setConcurrencyPolicy(ConcurrencyPolicy concurrencyPolicy) {
+        this.concurrencyPolicy = concurrencyPolicy;
+    }
+
     public final UsageStatistics getStatistics() {
         return statistics;
     }
@@ -252,18 +273,11 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
         setName(other.name);
         executionPreconditions = other.executionPreconditions.copy();
         activation.copy(other.activation);
+        concurrencyPolicy = other.concurrencyPolicy;
         statistics = other.statistics;
         sourceHistory.addHistory(other.sourceHistory);
     }
 
-    /**
-     * This method is called to dynamically allow the current task to determine which activation triggered it.
-     * This activation would contain only the activation element that triggered the event.
-     */
-    public void setInvoker(ActionInvoker invoker) {
-        this.invoker = invoker;
-    }
-
     /***********************************************************************/
     public UserDefinedAction recompileNative(Compiler compiler) {
         return this;
@@ -275,13 +289,14 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
         name = other.name;
         executionPreconditions = other.executionPreconditions.copy();
         activation.copy(other.activation);
+        concurrencyPolicy = other.concurrencyPolicy;
         enabled = other.enabled;
     }
 
     /***********************************************************************/
     @Override
     public JsonRootNode jsonize() {
-        return JsonNodeFactories.object(JsonNodeFactories.field("action_id", JsonNodeFactories.string(actionId)), JsonNodeFactories.field("source_path", JsonNodeFactories.string(sourcePath)), JsonNodeFactories.field("compiler", JsonNodeFactories.string(compiler.toString())), JsonNodeFactories.field("name", JsonNodeFactories.string(name)), JsonNodeFactories.field("execution_preconditions", executionPreconditions.jsonize()), JsonNodeFactories.field("activation", activation.jsonize()), JsonNodeFactories.field("enabled", JsonNodeFactories.booleanNode(enabled)), JsonNodeFactories.field("statistics", statistics.jsonize()), JsonNodeFactories.field("source_history", sourceHistory.jsonize()));
+        return JsonNodeFactories.object(JsonNodeFactories.field("action_id", JsonNodeFactories.string(actionId)), JsonNodeFactories.field("source_path", JsonNodeFactories.string(sourcePath)), JsonNodeFactories.field("compiler", JsonNodeFactories.string(compiler.toString())), JsonNodeFactories.field("name", JsonNodeFactories.string(name)), JsonNodeFactories.field("execution_preconditions", executionPreconditions.jsonize()), JsonNodeFactories.field("activation", activation.jsonize()), JsonNodeFactories.field("enabled", JsonNodeFactories.booleanNode(enabled)), JsonNodeFactories.field("concurrency_policy", JsonNodeFactories.string(concurrencyPolicy.getValue())), JsonNodeFactories.field("statistics", statistics.jsonize()), JsonNodeFactories.field("source_history", sourceHistory.jsonize()));
     }
 
     @Override
@@ -1,8 +1,43 @@
 package core.userDefinedTask.internals;
 
+import java.util.concurrent.TimeUnit;
+
 public final class ActionExecutionRequest {
+
+    /**
+     * How the time between repeats of an execution is measured.
+     */
+    public enum RepeatMode {
+        /**
+         * Wait the period after each run ends, so the time between starts is the run time plus the period.
+         */
+        FIXED_DELAY,
+        /**
+         * Start runs a period apart, whatever the run time.
+         */
+        FIXED_RATE,
+    }
+
+    /**
+     * What a {@link RepeatMode#FIXED_RATE} execution does when a run ends after the start of the next one is due.
+     */
+    public enum OverrunPolicy {
+        /**
+         * Start the missed runs back to back until the execution is back on schedule.
+         */
+        CATCH_UP,
+        /**
+         * Drop the missed runs and start at the next due time. Dropped runs count as repeats, so the execution still
+         * ends on schedule.
+         */
+        SKIP,
+    }
+
     private int repeatCount;
-    private long delayMsBetweenRepeat;
+    private long periodNanos;
+    private RepeatMode repeatMode;
+    private OverrunPolicy overrunPolicy;
+    private ExecutionPriority priority;
 
     private ActionExecutionRequest() {
     }
@@ -12,9 +47,40 @@ public final class ActionExecutionRequest {
     }
 
     public static ActionExecutionRequest of(int repeatCount, long delay) {
+        return of(repeatCount, delay, ExecutionPriority.INTERACTIVE);
+    }
+
+    public static ActionExecutionRequest of(int repeatCount, long delay, ExecutionPriority priority) {
+        return fixedDelay(repeatCount, TimeUnit.MILLISECONDS.toNanos(delay), priority);
+    }
+
+    /**
+     * @param delayNanos time between the end of a run and the start of the next one.
+     */
+    public static ActionExecutionRequest fixedDelay(int repeatCount, long delayNanos, ExecutionPriority priority) {
+        if (delayNanos < 0) {
+            throw new IllegalArgumentException("Delay between repeats must not be negative.");
+        }
+        return of(repeatCount, delayNanos, RepeatMode.FIXED_DELAY, OverrunPolicy.CATCH_UP, priority);
+    }
+
+    /**
+     * @param periodNanos time between the starts of consecutive runs.
+     */
+    public static ActionExecutionRequest fixedRate(int repeatCount, long periodNanos, OverrunPolicy overrunPolicy, ExecutionPriority priority) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Period between repeats must be positive.");
+        }
+        return of(repeatCount, periodNanos, RepeatMode.FIXED_RATE, overrunPolicy, priority);
+    }
+
+    private static ActionExecutionRequest of(int repeatCount, long periodNanos, RepeatMode repeatMode, OverrunPolicy overrunPolicy, ExecutionPriority priority) {
         ActionExecutionRequest result = new ActionExecutionRequest();
         result.repeatCount = repeatCount;
-        result.delayMsBetweenRepeat = delay;
+        result.periodNanos = periodNanos;
+        result.repeatMode = repeatMode;
+        result.overrunPolicy = overrunPolicy;
+        result.priority = priority;
         return result;
     }
 
@@ -22,7 +88,22 @@ public final class ActionExecutionRequest {
         return repeatCount;
     }
 
-    public long getDelayMsBetweenRepeat() {
-        return delayMsBetweenRepeat;
+    /**
+     * @return delay or period between repeats in nanoseconds, depending on the {@link RepeatMode}.
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+    public OverrunPolicy getOverrunPolicy() {
+        return overrunPolicy;
+    }
+
+    public ExecutionPriority getPriority() {
+        return priority;
     }
-}
\ No newline at end of file
+}
@@ -1,44 +1,154 @@
 package core.userDefinedTask.internals;
 
+import argo.jdom.JsonNode;
+import argo.jdom.JsonNodeFactories;
+import argo.jdom.JsonRootNode;
+import core.controller.CancellationToken;
 import core.controller.Core;
+import core.keyChain.ActivationMatch;
+import core.userDefinedTask.ExecutionContext;
 import core.userDefinedTask.UserDefinedAction;
-import utilities.RandomUtil;
+import utilities.LatencyHistogram;
+import utilities.json.IJsonable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Runs actions, each on its own virtual thread.
+ * <p>
+ * Executions run in the lane of their {@link ExecutionPriority}, so that long API runs do not hold up executions
+ * triggered by activations. In each lane, at most a fixed number of executions run at the same time. Executions
+ * started beyond that wait in the lane's bounded queue and start in order as running executions of the lane finish.
+ * When the queue is full, the lane's {@link RejectionPolicy} decides which execution is discarded, and the discard is
+ * logged and counted in {@link #getMetrics(ExecutionPriority)}.
+ * <p>
+ * Before reaching that queue, executions of the same task go through the task's {@link ConcurrencyPolicy}. Apart from
+ * {@link ConcurrencyPolicy#UNLIMITED_PARALLEL}, policies run a task's executions one at a time: the first admitted
+ * execution is submitted, and the others wait in a per task queue until the previous one ends. The number of admitted
+ * executions of a task is bounded by its policy, so e.g. an auto-repeating hotkey cannot fill the queue of its lane.
+ * <p>
+ * Repeats of an execution are scheduled on absolute {@link System#nanoTime()} deadlines as described by its
+ * {@link ActionExecutionRequest.RepeatMode}, and how late each repeat started is logged when the execution ends.
+ * <p>
+ * Each execution runs with its own {@link CancellationToken}, so halting wakes it up from any {@link Core} wait.
+ * Executions still running after {@link #HALT_TIMEOUT_MS} are abandoned: their slot is handed to the next execution
+ * and their thread is left to end on its own.
+ */
 public final class ActionExecutor {
 
     private static final Logger LOGGER = Logger.getLogger(ActionExecutor.class.getName());
-    private static final int MAX_SIMULTANEOUS_EXECUTIONS = 3;
+    public static final Limits DEFAULT_INTERACTIVE_LIMITS = new Limits(3, 64, RejectionPolicy.REJECT_NEW);
+    public static final Limits DEFAULT_BULK_LIMITS = new Limits(2, 16, RejectionPolicy.REJECT_NEW);
+    private static final long HALT_TIMEOUT_MS = 500;
+    // Executions of a task waiting for the previous one to end, for policies that queue more than one.
+    private static final int MAX_QUEUED_PER_TASK = 64;
+
+    /**
+     * What to do with a new execution when the pending queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * Discard the new execution.
+         */
+        REJECT_NEW,
+        /**
+         * Discard the execution that has been waiting the longest, and queue the new one.
+         */
+        DROP_OLDEST,
+    }
+
+    /**
+     * Capacity of a lane.
+     *
+     * @param maxRunning      maximum number of executions running at the same time.
+     * @param maxPending      maximum number of executions waiting to run.
+     * @param rejectionPolicy what to do with new executions when maxPending executions are already waiting.
+     */
+    public record Limits(int maxRunning, int maxPending, RejectionPolicy rejectionPolicy) implements IJsonable {
+        public Limits {
+            if (maxRunning < 1 || maxPending < 0) {
+                throw new IllegalArgumentException("Invalid execution limits " + maxRunning + " running and " + maxPending + " pending.");
+            }
+            if (rejectionPolicy == null) {
+                throw new IllegalArgumentException("Missing rejection policy for execution limits.");
+            }
+        }
+
+        /**
+         * @return the parsed limits, or null if they are invalid.
+         */
+        public static Limits parseJSON(JsonNode node) {
+            try {
+                int maxRunning = Integer.parseInt(node.getNumberValue("max_running"));
+                int maxPending = Integer.parseInt(node.getNumberValue("max_pending"));
+                RejectionPolicy rejectionPolicy = RejectionPolicy.valueOf(node.getStringValue("rejection_policy").toUpperCase(Locale.ROOT));
+                return new Limits(maxRunning, maxPending, rejectionPolicy);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to parse execution limits.", e);
+                return null;
+            }
+        }
+
+        @Override
+        public JsonRootNode jsonize() {
+            return JsonNodeFactories.object(
+                    JsonNodeFactories.field("max_running", JsonNodeFactories.number(maxRunning)),
+                    JsonNodeFactories.field("max_pending", JsonNodeFactories.number(maxPending)),
+                    JsonNodeFactories.field("rejection_policy", JsonNodeFactories.string(rejectionPolicy.name().toLowerCase(Locale.ROOT))));
+        }
+    }
 
-    private final HashMap<String, Thread> executions;
     private final Core core;
+    private final Map<ExecutionPriority, Lane> lanes;
+
+    private final AtomicLong nextId;
+    private final Map<Long, Execution> executions;
+    private final Map<String, TaskState> taskStates;
 
     public ActionExecutor(Core controller) {
+        this(controller, DEFAULT_INTERACTIVE_LIMITS, DEFAULT_BULK_LIMITS);
+    }
+
+    public ActionExecutor(Core controller, Limits interactive, Limits bulk) {
         this.core = controller;
-        this.executions = new HashMap<>();
+        this.lanes = new EnumMap<>(ExecutionPriority.class);
+        this.lanes.put(ExecutionPriority.INTERACTIVE, new Lane(interactive));
+        this.lanes.put(ExecutionPriority.BULK, new Lane(bulk));
+        this.nextId = new AtomicLong();
+        this.executions = new ConcurrentHashMap<>();
+        this.taskStates = new ConcurrentHashMap<>();
     }
 
     /**
-     * Start executing actions, each in a separate thread.
+     * Start executing matched actions, each in a separate thread.
      *
-     * @param actions actions to execute.
+     * @param matches actions to execute, with the activation that triggered each of them.
      */
-    public void startExecutingActions(Collection<UserDefinedAction> actions) {
-        for (UserDefinedAction action : actions) {
-            startExecutingAction(action);
+    public void startExecutingActions(Collection<ActivationMatch> matches) {
+        for (ActivationMatch match : matches) {
+            ExecutionContext context = ExecutionContext.Builder.of().setController(core).setActivation(match.getInvoker()).setEventNanos(match.getEventNanos()).build();
+            startExecutingAction(ActionExecutionRequest.of(), match.getAction(), context);
         }
     }
 
-
-    private void startExecutingAction(UserDefinedAction action) {
-        startExecutingAction(ActionExecutionRequest.of(), action);
-    }
-
     /**
      * Start executing an action in a separate thread
      *
@@ -46,43 +156,342 @@ public final class ActionExecutor {
      * @param action  action to execute
      */
     public void startExecutingAction(ActionExecutionRequest request, UserDefinedAction action) {
-        if (executions.size() >= MAX_SIMULTANEOUS_EXECUTIONS) {
-            //LOGGER.info("Cannot run more than " + MAX_SIMULTANEOUS_EXECUTIONS + " tasks simultaneously.");
-            return;
-        }
+        startExecutingAction(request, action, ExecutionContext.Builder.of().setController(core).build());
+    }
+
+    private void startExecutingAction(ActionExecutionRequest request, UserDefinedAction action, ExecutionContext context) {
         if (action == null) {
             throw new IllegalArgumentException("Nothing to run.");
         }
-        final String id = RandomUtil.randomID();
-        Thread execution = new Thread(() -> {
-            try {
-                for (int i = 0; i < request.getRepeatCount(); i++) {
-                    action.trackedAction(core);
-                    Thread.sleep(request.getDelayMsBetweenRepeat());
+        admit(new Execution(nextId.incrementAndGet(), request, action, context, lanes.get(request.getPriority())));
+    }
+
+    /**
+     * Apply the concurrency policy of the execution's task, and submit the execution if it can run now.
+     */
+    private void admit(Execution execution) {
+        ConcurrencyPolicy policy = execution.action.getConcurrencyPolicy();
+        if (policy == ConcurrencyPolicy.UNLIMITED_PARALLEL) {
+            submit(execution);
+            return;
+        }
+
+        TaskState state = taskStates.computeIfAbsent(execution.action.getActionId(), id -> new TaskState());
+        execution.taskState = state;
+
+        int limit = switch (policy) {
+            case DROP_IF_RUNNING -> 1;
+            case QUEUE_ONE -> 2;
+            default -> MAX_QUEUED_PER_TASK + 1;
+        };
+        int admitted;
+        do {
+            admitted = state.admitted.get();
+            if (admitted >= limit) {
+                execution.lane.skipped.increment();
+                return;
+            }
+        } while (!state.admitted.compareAndSet(admitted, admitted + 1));
+
+        if (policy == ConcurrencyPolicy.CANCEL_AND_RESTART) {
+            // Only cancel once admitted, so that a trigger skipped over the limit does not stop the running execution.
+            cancel(state.latest.getAndSet(execution));
+        }
+        if (admitted == 0) {
+            submit(execution);
+        } else {
+            state.waiting.add(execution);
+        }
+    }
+
+    /**
+     * Release the task slot of an execution that ended or will never run, and submit the next admitted execution of
+     * the task if any.
+     */
+    private void taskEnded(Execution execution) {
+        TaskState state = execution.taskState;
+        if (state == null) {
+            return;
+        }
+
+        state.latest.compareAndSet(execution, null);
+        if (state.admitted.decrementAndGet() == 0) {
+            return;
+        }
+        Execution next;
+        // The next execution is counted as admitted just before it is added to the queue.
+        while ((next = state.waiting.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        submit(next);
+    }
+
+    private void submit(Execution execution) {
+        if (execution.token.isCancelled()) {
+            taskEnded(execution);
+            return;
+        }
+
+        Lane lane = execution.lane;
+        Limits limits = lane.limits;
+        Execution discarded = null;
+        boolean start = false;
+        synchronized (lane) {
+            if (lane.running < limits.maxRunning()) {
+                lane.running++;
+                start = true;
+            } else if (lane.pending.size() < limits.maxPending()) {
+                lane.pending.addLast(execution);
+                lane.queued.increment();
+            } else if (limits.rejectionPolicy() == RejectionPolicy.DROP_OLDEST && limits.maxPending() > 0) {
+                discarded = lane.pending.pollFirst();
+                lane.pending.addLast(execution);
+                lane.queued.increment();
+            } else {
+                discarded = execution;
+            }
+        }
+
+        if (discarded != null) {
+            lane.rejected.increment();
+            LOGGER.warning("Discarding execution " + discarded.id + " of task " + discarded.action.getName()
+                    + " since " + limits.maxRunning() + " tasks are running and " + limits.maxPending() + " are waiting.");
+            taskEnded(discarded);
+        }
+        if (start) {
+            start(execution);
+        }
+    }
+
+    private void start(Execution execution) {
+        Thread thread = Thread.ofVirtual()
+                .name("Execution " + execution.id + " of action " + execution.action.getName() + " ID: " + execution.action.getActionId())
+                .unstarted(() -> run(execution));
+        execution.thread = thread;
+        executions.put(execution.id, execution);
+        execution.lane.started.increment();
+        thread.start();
+    }
+
+    private void run(Execution execution) {
+        execution.token.bind();
+        ActionExecutionRequest request = execution.request;
+        // How late each repeat started compared to when it was due.
+        LatencyHistogram lateness = request.getRepeatCount() > 1 ? new LatencyHistogram() : null;
+        int runs = 0;
+        long skippedRepeats = 0;
+        try {
+            long due = 0;
+            for (int i = 0; i < request.getRepeatCount(); i++) {
+                if (i > 0) {
+                    execution.token.sleepUntil(due);
+                    lateness.record(System.nanoTime() - due);
                 }
-            } catch (InterruptedException e) {
-                LOGGER.info("Task ended prematurely");
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Exception while executing task " + action.getName(), e);
+                execution.token.throwIfCancelled();
+                long start = System.nanoTime();
+                runs++;
+                execution.action.trackedAction(execution.context);
+
+                long now = System.nanoTime();
+                if (request.getRepeatMode() == ActionExecutionRequest.RepeatMode.FIXED_DELAY) {
+                    due = now + request.getPeriodNanos();
+                    continue;
+                }
+                // Deadlines are absolute, so time spent outside of the action does not accumulate as drift.
+                due = (i == 0 ? start : due) + request.getPeriodNanos();
+                if (now - due > 0 && request.getOverrunPolicy() == ActionExecutionRequest.OverrunPolicy.SKIP) {
+                    long missed = Math.min((now - due) / request.getPeriodNanos() + 1, request.getRepeatCount() - 1 - i);
+                    due += missed * request.getPeriodNanos();
+                    skippedRepeats += missed;
+                    i += (int) missed;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.info("Task ended prematurely");
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Exception while executing task " + execution.action.getName(), e);
+        } finally {
+            CancellationToken.unbind();
+            if (lateness != null) {
+                LatencyHistogram.Summary summary = lateness.summarize();
+                LOGGER.info(String.format("Execution %d of task %s ran %d times in %s mode, skipped %d repeats. "
+                                + "Start lateness in microseconds: mean %.1f, p50 %.1f, p99 %.1f, max %.1f.",
+                        execution.id, execution.action.getName(), runs, request.getRepeatMode(), skippedRepeats,
+                        summary.getMeanNanos() / 1000.0, summary.getP50Nanos() / 1000.0, summary.getP99Nanos() / 1000.0, summary.getMaxNanos() / 1000.0));
+            }
+            if (execution.release()) {
+                executions.remove(execution.id);
+                execution.lane.completed.increment();
+                startNext(execution.lane);
+                taskEnded(execution);
             }
-            executions.remove(id);
-        }, "Execution thread for Action " + action.getName() + "ID: " + action.getActionId());
+        }
+    }
 
-        executions.put(id, execution);
-        execution.start();
+    /**
+     * Hand the slot of a finished execution to the oldest pending one in the lane, or release the slot if nothing is
+     * pending. Pending executions cancelled while waiting are skipped without starting a thread.
+     */
+    private void startNext(Lane lane) {
+        while (true) {
+            Execution next;
+            synchronized (lane) {
+                next = lane.pending.pollFirst();
+                if (next == null) {
+                    lane.running--;
+                    return;
+                }
+            }
+            if (!next.token.isCancelled()) {
+                start(next);
+                return;
+            }
+            taskEnded(next);
+        }
+    }
+
+    private static void cancel(Execution execution) {
+        if (execution == null) {
+            return;
+        }
+        execution.token.cancel();
+        Thread thread = execution.thread;
+        if (thread != null) {
+            // Also wake up waits outside of Core, e.g. a Thread.sleep in the task itself.
+            thread.interrupt();
+        }
     }
 
     /**
-     * Interrupt all currently executing tasks, and clear the record of all executing tasks
+     * Cancel all currently executing tasks, and discard all tasks waiting to be executed.
+     * Waits up to {@link #HALT_TIMEOUT_MS} in total for the cancelled tasks to end, and abandons those that do not.
+     * A task calling this method is not cancelled.
      */
     public void haltAllTasks() {
-        LinkedList<Thread> endingThreads = new LinkedList<>(executions.values());
-        for (Thread thread : endingThreads) {
-            LOGGER.info("Halting execution thread " + thread.getName());
-            while (thread.isAlive() && thread != Thread.currentThread()) {
-                thread.interrupt();
+        for (TaskState state : taskStates.values()) {
+            for (Execution execution : state.waiting) {
+                execution.token.cancel();
             }
         }
-        executions.clear();
+        List<Execution> discarded = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                discarded.addAll(lane.pending);
+                lane.pending.clear();
+            }
+        }
+        for (Execution execution : discarded) {
+            execution.token.cancel();
+            taskEnded(execution);
+        }
+
+        List<Execution> endingExecutions = new ArrayList<>(executions.values());
+        endingExecutions.removeIf(execution -> execution.thread == Thread.currentThread());
+        for (Execution execution : endingExecutions) {
+            cancel(execution);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HALT_TIMEOUT_MS);
+        for (Execution execution : endingExecutions) {
+            if (CancellationToken.join(execution.thread, deadline) || !execution.release()) {
+                continue;
+            }
+            LOGGER.warning("Abandoning execution thread " + execution.thread.getName() + " which did not end within " + HALT_TIMEOUT_MS + "ms.");
+            executions.remove(execution.id);
+            execution.lane.abandoned.increment();
+            startNext(execution.lane);
+            taskEnded(execution);
+        }
+    }
+
+    public ExecutionMetrics getMetrics(ExecutionPriority priority) {
+        return lanes.get(priority).metrics();
+    }
+
+    /**
+     * Running slots and pending queue of an {@link ExecutionPriority}.
+     */
+    private static final class Lane {
+        private final Limits limits;
+        // Guarded by this.
+        private final Deque<Execution> pending;
+        private int running;
+
+        private final LongAdder started;
+        private final LongAdder queued;
+        private final LongAdder rejected;
+        private final LongAdder skipped;
+        private final LongAdder completed;
+        private final LongAdder abandoned;
+
+        private Lane(Limits limits) {
+            this.limits = limits;
+            this.pending = new ArrayDeque<>();
+            this.started = new LongAdder();
+            this.queued = new LongAdder();
+            this.rejected = new LongAdder();
+            this.skipped = new LongAdder();
+            this.completed = new LongAdder();
+            this.abandoned = new LongAdder();
+        }
+
+        private ExecutionMetrics metrics() {
+            int currentRunning;
+            int currentPending;
+            synchronized (this) {
+                currentRunning = running;
+                currentPending = pending.size();
+            }
+            return new ExecutionMetrics(currentRunning, limits.maxRunning(), currentPending, limits.maxPending(),
+                    started.sum(), queued.sum(), rejected.sum(), skipped.sum(), completed.sum(), abandoned.sum());
+        }
+    }
+
+    /**
+     * Executions of a task with a {@link ConcurrencyPolicy} other than {@link ConcurrencyPolicy#UNLIMITED_PARALLEL}.
+     */
+    private static final class TaskState {
+        // Executions submitted or waiting in the queue below. Only the oldest of them is submitted.
+        private final AtomicInteger admitted;
+        private final Queue<Execution> waiting;
+        // Latest execution admitted with CANCEL_AND_RESTART, to be cancelled by the next one.
+        private final AtomicReference<Execution> latest;
+
+        private TaskState() {
+            admitted = new AtomicInteger();
+            waiting = new ConcurrentLinkedQueue<>();
+            latest = new AtomicReference<>();
+        }
+    }
+
+    private static final class Execution {
+        private final long id;
+        private final ActionExecutionRequest request;
+        private final UserDefinedAction action;
+        private final ExecutionContext context;
+        private final Lane lane;
+        private final CancellationToken token;
+        private final AtomicBoolean released;
+        private volatile Thread thread;
+        // Set before the execution is published to other threads, if its task policy applies.
+        private TaskState taskState;
+
+        private Execution(long id, ActionExecutionRequest request, UserDefinedAction action, ExecutionContext context, Lane lane) {
+            this.id = id;
+            this.request = request;
+            this.action = action;
+            this.context = context;
+            this.lane = lane;
+            this.token = new CancellationToken();
+            this.released = new AtomicBoolean();
+        }
+
+        /**
+         * @return whether the caller is the first to release the slot of this execution, either because it ended or
+         * because it was abandoned.
+         */
+        private boolean release() {
+            return released.compareAndSet(false, true);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package core.userDefinedTask.internals;
+
+/**
+ * What {@link ActionExecutor} does when a task is started while a previous execution of the same task has not ended.
+ */
+public enum ConcurrencyPolicy {
+    /**
+     * Ignore the new execution.
+     */
+    DROP_IF_RUNNING("drop_if_running", "Ignore if already running"),
+    /**
+     * Run the new execution after the current one, keeping at most one waiting.
+     */
+    QUEUE_ONE("queue_one", "Queue at most one run"),
+    /**
+     * Run all new executions one after another. Executions started while many are already waiting are ignored.
+     */
+    QUEUE_ALL("queue_all", "Queue all runs"),
+    /**
+     * Cancel the current execution and run the new one once it has ended.
+     */
+    CANCEL_AND_RESTART("cancel_and_restart", "Cancel and restart"),
+    /**
+     * Run the new execution alongside the current ones.
+     */
+    UNLIMITED_PARALLEL("unlimited_parallel", "Run in parallel"),
+    ;
+
+    public static final ConcurrencyPolicy DEFAULT = UNLIMITED_PARALLEL;
+
+    private final String value;
+    private final String displayName;
+
+    ConcurrencyPolicy(String value, String displayName) {
+        this.value = value;
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return the policy with this value, or null if there is none.
+     */
+    public static ConcurrencyPolicy forValue(String value) {
+        for (ConcurrencyPolicy policy : values()) {
+            if (policy.value.equals(value)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return value identifying this policy in JSON and web UI requests.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,101 @@
+package core.userDefinedTask.internals;
+
+/**
+ * Snapshot of the executions started by an {@link ActionExecutor}.
+ */
+public final class ExecutionMetrics {
+
+    private final int running;
+    private final int maxRunning;
+    private final int pending;
+    private final int maxPending;
+    private final long started;
+    private final long queued;
+    private final long rejected;
+    private final long skipped;
+    private final long completed;
+    private final long abandoned;
+
+    ExecutionMetrics(int running, int maxRunning, int pending, int maxPending, long started, long queued, long rejected, long skipped, long completed, long abandoned) {
+        this.running = running;
+        this.maxRunning = maxRunning;
+        this.pending = pending;
+        this.maxPending = maxPending;
+        this.started = started;
+        this.queued = queued;
+        this.rejected = rejected;
+        this.skipped = skipped;
+        this.completed = completed;
+        this.abandoned = abandoned;
+    }
+
+    /**
+     * @return number of executions currently running.
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    /**
+     * @return number of executions waiting for a running one to finish.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * @return number of executions that had to wait before starting, including those still waiting.
+     */
+    public long getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return number of executions discarded because the pending queue was full.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return number of executions not run because of the {@link ConcurrencyPolicy} of their task.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return number of executions that did not end in time when halted, and were left running in the background.
+     */
+    public long getAbandoned() {
+        return abandoned;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionMetrics{running=" + running + "/" + maxRunning
+                + ", pending=" + pending + "/" + maxPending
+                + ", started=" + started
+                + ", queued=" + queued
+                + ", rejected=" + rejected
+                + ", skipped=" + skipped
+                + ", completed=" + completed
+                + ", abandoned=" + abandoned + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package core.userDefinedTask.internals;
+
+/**
+ * Lane of {@link ActionExecutor} an execution runs in. Each lane has its own running slots and pending queue, so
+ * executions in one lane never wait for executions in the other.
+ */
+public enum ExecutionPriority {
+    /**
+     * Executions triggered by the user's activations, e.g. hotkeys and mouse gestures.
+     */
+    INTERACTIVE,
+    /**
+     * Executions requested through the API, which may repeat the task many times.
+     */
+    BULK,
+}
@@ -26,8 +26,18 @@ import core.webui.server.handlers.ApiPageHandler;
 import core.webui.server.handlers.EmptyHandler;
 import core.webui.server.handlers.IndexPageHandler;
 import core.webui.server.handlers.internals.*;
+import core.webui.server.handlers.internals.customgestures.ActionRecordCustomGestureHandler;
+import core.webui.server.handlers.internals.customgestures.ActionRemoveCustomGestureHandler;
+import core.webui.server.handlers.internals.customgestures.GetCustomGesturesHandler;
+import core.webui.server.handlers.internals.gesturetraining.ActionClearGestureTrainingSamplesHandler;
+import core.webui.server.handlers.internals.gesturetraining.ActionRecordGestureTrainingSampleHandler;
+import core.webui.server.handlers.internals.gesturetraining.ActionResetGestureModelHandler;
+import core.webui.server.handlers.internals.gesturetraining.ActionTrainGestureModelHandler;
+import core.webui.server.handlers.internals.gesturetraining.GetGestureTrainingSamplesHandler;
 import core.webui.server.handlers.internals.ipcs.IPCPageHandler;
 import core.webui.server.handlers.internals.ipcs.ModifyIPCServicePortHandler;
+import core.webui.server.handlers.internals.logs.DispatchLatenciesPageHandler;
+import core.webui.server.handlers.internals.logs.GetDispatchLatenciesHandler;
 import core.webui.server.handlers.internals.logs.GetIsActiveWindowInfosLoggingEnabledHandler;
 import core.webui.server.handlers.internals.logs.GetIsMousePositionLoggingEnabledHandler;
 import core.webui.server.handlers.internals.logs.LogsPageHandler;
@@ -100,6 +110,7 @@ public final class UIServer extends IPCServiceWithModifiablePort {
         Map<String, HttpHandlerWithBackend> output = new HashMap<>();
         output.put("/", new IndexPageHandler(objectRenderer, manuallyBuildActionConstructorManager));
         output.put("/logs", new LogsPageHandler(objectRenderer));
+        output.put("/dispatch-latencies", new DispatchLatenciesPageHandler(objectRenderer));
         output.put("/ipcs", new IPCPageHandler(objectRenderer));
         output.put("/repeats-remote-clients", new EmptyHandler());
         output.put("/global-configs", new EmptyHandler());
@@ -146,6 +157,12 @@ public final class UIServer extends IPCServiceWithModifiablePort {
         output.put("/internals/action/task-activation/key-chain/remove", new ActionTaskActivationRemoveKeyChainHandler(objectRenderer, taskActivationConstructorManager));
         output.put("/internals/action/task-activation/key-sequence/remove", new ActionTaskActivationRemoveKeySequenceHandler(objectRenderer, taskActivationConstructorManager));
         output.put("/internals/action/task-activation/mouse-gestures/set", new ActionTaskActivationSetMouseGesturesHandler(objectRenderer, taskActivationConstructorManager));
+        output.put("/internals/action/custom-gestures/record", new ActionRecordCustomGestureHandler());
+        output.put("/internals/action/custom-gestures/remove", new ActionRemoveCustomGestureHandler());
+        output.put("/internals/action/gesture-training/record-sample", new ActionRecordGestureTrainingSampleHandler());
+        output.put("/internals/action/gesture-training/clear-samples", new ActionClearGestureTrainingSamplesHandler());
+        output.put("/internals/action/gesture-training/train", new ActionTrainGestureModelHandler());
+        output.put("/internals/action/gesture-training/reset-model", new ActionResetGestureModelHandler());
         output.put("/internals/action/task-activation/phrase/add", new ActionTaskActivationAddPhraseHandler(objectRenderer, taskActivationConstructorManager));
         output.put("/internals/action/task-activation/phrase/remove", new ActionTaskActivationRemovePhraseHandler(objectRenderer, taskActivationConstructorManager));
         output.put("/internals/action/task-activation/shared-variables/add", new EmptyHandler());
@@ -206,6 +223,9 @@ public final class UIServer extends IPCServiceWithModifiablePort {
         output.put("/internals/get/is-mouse-position-logging-enabled", new GetIsMousePositionLoggingEnabledHandler());
         output.put("/internals/get/is-active-window-info-logging-enabled", new GetIsActiveWindowInfosLoggingEnabledHandler());
         output.put("/internals/get/logs", new GetLogsHandler());
+        output.put("/internals/get/custom-gestures", new GetCustomGesturesHandler());
+        output.put("/internals/get/gesture-training-samples", new GetGestureTrainingSamplesHandler());
+        output.put("/internals/get/dispatch-latencies", new GetDispatchLatenciesHandler());
         output.put("/internals/get/mouse-position", new GetMousePositionHandler());
         output.put("/internals/get/path-suggestion", new GetPathSuggestionHandler());
         output.put("/internals/get/source-templates", new GetSourceTemplateHandler());
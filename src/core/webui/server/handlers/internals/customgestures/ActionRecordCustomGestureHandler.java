@@ -0,0 +1,43 @@
+package core.webui.server.handlers.internals.customgestures;
+
+import core.keyChain.MouseGesture;
+import core.webui.server.handlers.AbstractPOSTHandler;
+import core.webui.webcommon.HttpServerUtilities;
+import frontEnd.Backend;
+import org.apache.http.HttpRequest;
+
+import java.util.Map;
+
+/**
+ * Arms the mouse gesture manager so that the next gesture the user draws is stored as a template of a custom gesture.
+ */
+public final class ActionRecordCustomGestureHandler extends AbstractPOSTHandler {
+
+    public ActionRecordCustomGestureHandler() {
+        super("Could not record custom gesture.");
+    }
+
+    @Override
+    protected String handle(HttpRequest request) {
+        String name = customGestureName(request);
+        if (MouseGesture.find(name) != null) {
+            throw new IllegalArgumentException("Name '" + name + "' is already used by a built in gesture.");
+        }
+
+        Backend.keysManager.recordMouseGestureTemplate(name);
+        return "Hold the mouse gesture key and draw the gesture to record it as '" + name + "'.";
+    }
+
+    static String customGestureName(HttpRequest request) {
+        Map<String, String> params = HttpServerUtilities.parseSimplePostParameters(request);
+        if (params == null) {
+            throw new IllegalArgumentException("Request empty");
+        }
+
+        String name = params.get("name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Custom gesture name must be provided.");
+        }
+        return name.trim();
+    }
+}
@@ -0,0 +1,23 @@
+package core.webui.server.handlers.internals.customgestures;
+
+import core.webui.server.handlers.AbstractPOSTHandler;
+import frontEnd.Backend;
+import org.apache.http.HttpRequest;
+
+public final class ActionRemoveCustomGestureHandler extends AbstractPOSTHandler {
+
+    public ActionRemoveCustomGestureHandler() {
+        super("Could not remove custom gesture.");
+    }
+
+    @Override
+    protected String handle(HttpRequest request) {
+        String name = ActionRecordCustomGestureHandler.customGestureName(request);
+        if (!Backend.config.getCustomGestures().removeTemplates(name)) {
+            throw new IllegalArgumentException("No custom gesture named '" + name + "'.");
+        }
+
+        Backend.writeConfigFile();
+        return "Removed custom gesture '" + name + "'.";
+    }
+}
@@ -0,0 +1,33 @@
+package core.webui.server.handlers.internals.customgestures;
+
+import argo.jdom.JsonNode;
+import argo.jdom.JsonNodeFactories;
+import core.keyChain.mouseGestureRecognition.PointCloudRecognizer;
+import core.webui.server.handlers.AbstractGETHandler;
+import frontEnd.Backend;
+import utilities.json.JSONUtility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the custom gestures with the number of templates recorded for each.
+ */
+public final class GetCustomGesturesHandler extends AbstractGETHandler {
+
+    public GetCustomGesturesHandler() {
+        super("Could not get custom gestures.");
+    }
+
+    @Override
+    protected String handle() {
+        PointCloudRecognizer customGestures = Backend.config.getCustomGestures();
+        List<JsonNode> output = new ArrayList<>();
+        for (String name : customGestures.getGestureNames()) {
+            output.add(JsonNodeFactories.object(
+                    JsonNodeFactories.field("name", JsonNodeFactories.string(name)),
+                    JsonNodeFactories.field("templates", JsonNodeFactories.number(customGestures.getTemplateCount(name)))));
+        }
+        return JSONUtility.jsonToString(JsonNodeFactories.array(output));
+    }
+}
@@ -0,0 +1,19 @@
+package core.webui.server.handlers.internals.gesturetraining;
+
+import core.webui.server.handlers.AbstractPOSTHandler;
+import frontEnd.Backend;
+import org.apache.http.HttpRequest;
+
+public final class ActionClearGestureTrainingSamplesHandler extends AbstractPOSTHandler {
+
+    public ActionClearGestureTrainingSamplesHandler() {
+        super("Could not clear gesture training samples.");
+    }
+
+    @Override
+    protected String handle(HttpRequest ignored) {
+        Backend.config.getMouseGestureTrainingSamples().clear();
+        Backend.writeConfigFile();
+        return "Cleared gesture training samples.";
+    }
+}
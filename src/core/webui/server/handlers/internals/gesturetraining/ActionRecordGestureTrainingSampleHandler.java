@@ -0,0 +1,36 @@
+package core.webui.server.handlers.internals.gesturetraining;
+
+import core.keyChain.MouseGesture;
+import core.webui.server.handlers.AbstractPOSTHandler;
+import core.webui.webcommon.HttpServerUtilities;
+import frontEnd.Backend;
+import org.apache.http.HttpRequest;
+
+import java.util.Map;
+
+/**
+ * Arms the mouse gesture manager so that the next gesture the user draws is stored as a training sample.
+ */
+public final class ActionRecordGestureTrainingSampleHandler extends AbstractPOSTHandler {
+
+    public ActionRecordGestureTrainingSampleHandler() {
+        super("Could not record gesture training sample.");
+    }
+
+    @Override
+    protected String handle(HttpRequest request) {
+        Map<String, String> params = HttpServerUtilities.parseSimplePostParameters(request);
+        if (params == null) {
+            throw new IllegalArgumentException("Request empty");
+        }
+
+        String label = params.get("label");
+        MouseGesture gesture = label == null ? null : MouseGesture.find(label);
+        if (gesture == null) {
+            throw new IllegalArgumentException("Unknown gesture '" + label + "'.");
+        }
+
+        Backend.keysManager.recordMouseGestureTrainingSample(gesture);
+        return "Hold the mouse gesture key and draw the gesture '" + label + "'.";
+    }
+}
@@ -0,0 +1,28 @@
+package core.webui.server.handlers.internals.gesturetraining;
+
+import core.keyChain.mouseGestureRecognition.LogisticRegressionTrainer;
+import core.webui.server.handlers.AbstractPOSTHandler;
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static core.config.Constants.MOUSE_GESTURE_MODEL_FILE_NAME;
+
+public final class ActionResetGestureModelHandler extends AbstractPOSTHandler {
+
+    public ActionResetGestureModelHandler() {
+        super("Could not reset gesture model.");
+    }
+
+    @Override
+    protected String handle(HttpRequest ignored) {
+        try {
+            LogisticRegressionTrainer.resetToBundledModel(Path.of(MOUSE_GESTURE_MODEL_FILE_NAME));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "Reset gesture model to the shipped model.";
+    }
+}
@@ -0,0 +1,32 @@
+package core.webui.server.handlers.internals.gesturetraining;
+
+import core.keyChain.mouseGestureRecognition.LogisticRegressionTrainer;
+import core.webui.server.handlers.AbstractPOSTHandler;
+import frontEnd.Backend;
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static core.config.Constants.MOUSE_GESTURE_MODEL_FILE_NAME;
+
+public final class ActionTrainGestureModelHandler extends AbstractPOSTHandler {
+
+    public ActionTrainGestureModelHandler() {
+        super("Could not train gesture model.");
+    }
+
+    @Override
+    protected String handle(HttpRequest ignored) {
+        // Save the samples first, so that they are kept even if training fails.
+        Backend.writeConfigFile();
+        try {
+            LogisticRegressionTrainer.Result result = LogisticRegressionTrainer.of().trainAndInstall(Backend.config.getMouseGestureTrainingSamples(), Path.of(MOUSE_GESTURE_MODEL_FILE_NAME));
+            return String.format("Trained on %d samples of %d gestures in %d ms. Training accuracy %.1f%%.",
+                    result.samples(), result.labels(), result.millis(), result.accuracy() * 100);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package core.webui.server.handlers.internals.gesturetraining;
+
+import argo.jdom.JsonNode;
+import argo.jdom.JsonNodeFactories;
+import core.keyChain.MouseGesture;
+import core.webui.server.handlers.AbstractGETHandler;
+import frontEnd.Backend;
+import utilities.json.JSONUtility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists every built in gesture with the number of training samples recorded for it.
+ */
+public final class GetGestureTrainingSamplesHandler extends AbstractGETHandler {
+
+    public GetGestureTrainingSamplesHandler() {
+        super("Could not get gesture training samples.");
+    }
+
+    @Override
+    protected String handle() {
+        Map<String, Integer> counts = Backend.config.getMouseGestureTrainingSamples().countsByLabel();
+        List<JsonNode> output = new ArrayList<>();
+        for (MouseGesture gesture : MouseGesture.values()) {
+            output.add(JsonNodeFactories.object(
+                    JsonNodeFactories.field("label", JsonNodeFactories.string(gesture.getName())),
+                    JsonNodeFactories.field("samples", JsonNodeFactories.number(counts.getOrDefault(gesture.getName(), 0)))));
+        }
+        return JSONUtility.jsonToString(JsonNodeFactories.array(output));
+    }
+}
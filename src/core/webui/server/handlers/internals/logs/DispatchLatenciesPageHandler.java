@@ -0,0 +1,25 @@
+package core.webui.server.handlers.internals.logs;
+
+import core.webui.server.handlers.AbstractSingleMethodHttpHandler;
+import core.webui.server.handlers.AbstractUIHttpHandler;
+import core.webui.server.handlers.renderedobjects.ObjectRenderer;
+import org.apache.http.HttpRequest;
+import org.apache.http.nio.protocol.HttpAsyncExchange;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class DispatchLatenciesPageHandler extends AbstractUIHttpHandler {
+
+    public DispatchLatenciesPageHandler(ObjectRenderer objectRenderer) {
+        super(objectRenderer, AbstractSingleMethodHttpHandler.GET_METHOD);
+    }
+
+    @Override
+    protected Void handleAllowedRequestWithBackend(HttpRequest request, HttpAsyncExchange exchange) throws IOException {
+        Map<String, Object> data = new HashMap<>();
+
+        return renderedPage(exchange, "dispatch_latencies", data);
+    }
+}
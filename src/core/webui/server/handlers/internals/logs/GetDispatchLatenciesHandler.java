@@ -0,0 +1,99 @@
+package core.webui.server.handlers.internals.logs;
+
+import core.keyChain.managers.HookEventMetrics;
+import core.userDefinedTask.internals.ExecutionMetrics;
+import core.userDefinedTask.internals.ExecutionPriority;
+import core.webui.server.handlers.AbstractGETHandler;
+import frontEnd.Backend;
+import utilities.LatencyHistogram;
+import utilities.json.JSONUtility;
+import utilities.json.Jsonizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public final class GetDispatchLatenciesHandler extends AbstractGETHandler {
+
+    public GetDispatchLatenciesHandler() {
+        super("Could not get dispatch latencies.");
+    }
+
+    @Override
+    protected String handle() {
+        Map<String, LatencyHistogram.Summary> latencies = Backend.keysManager.getDispatchLatencies();
+        HookEventMetrics metrics = Backend.keysManager.getHookEventMetrics();
+        return JSONUtility.jsonToString(Objects.requireNonNull(Jsonizer.jsonize(DispatchLatencies.of(latencies, metrics))).getRootNode());
+    }
+
+    private static final class DispatchLatencies {
+        private int queueDepth;
+        private int queueCapacity;
+        private long dropped;
+        @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
+        private List<ExecutionLane> executionLanes;
+        @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
+        private List<Stage> stages;
+
+        private static DispatchLatencies of(Map<String, LatencyHistogram.Summary> latencies, HookEventMetrics metrics) {
+            DispatchLatencies output = new DispatchLatencies();
+            output.queueDepth = metrics.getQueueDepth();
+            output.queueCapacity = metrics.getQueueCapacity();
+            output.dropped = metrics.getDropped();
+            output.executionLanes = new ArrayList<>();
+            for (ExecutionPriority priority : ExecutionPriority.values()) {
+                output.executionLanes.add(ExecutionLane.of(priority, Backend.actionExecutor.getMetrics(priority)));
+            }
+            output.stages = new ArrayList<>();
+            latencies.forEach((name, summary) -> output.stages.add(Stage.of(name, summary)));
+            return output;
+        }
+    }
+
+    private static final class ExecutionLane {
+        private String name;
+        private int running;
+        private int maxRunning;
+        private int pending;
+        private int maxPending;
+        private long rejected;
+        private long skipped;
+        private long abandoned;
+
+        private static ExecutionLane of(ExecutionPriority priority, ExecutionMetrics metrics) {
+            ExecutionLane output = new ExecutionLane();
+            output.name = priority.name().toLowerCase();
+            output.running = metrics.getRunning();
+            output.maxRunning = metrics.getMaxRunning();
+            output.pending = metrics.getPending();
+            output.maxPending = metrics.getMaxPending();
+            output.rejected = metrics.getRejected();
+            output.skipped = metrics.getSkipped();
+            output.abandoned = metrics.getAbandoned();
+            return output;
+        }
+    }
+
+    private static final class Stage {
+        private String name;
+        private long count;
+        private long meanNanos;
+        private long p50Nanos;
+        private long p99Nanos;
+        private long p999Nanos;
+        private long maxNanos;
+
+        private static Stage of(String name, LatencyHistogram.Summary summary) {
+            Stage output = new Stage();
+            output.name = name;
+            output.count = summary.getCount();
+            output.meanNanos = summary.getMeanNanos();
+            output.p50Nanos = summary.getP50Nanos();
+            output.p99Nanos = summary.getP99Nanos();
+            output.p999Nanos = summary.getP999Nanos();
+            output.maxNanos = summary.getMaxNanos();
+            return output;
+        }
+    }
+}
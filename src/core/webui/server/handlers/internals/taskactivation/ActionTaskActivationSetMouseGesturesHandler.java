@@ -49,6 +49,20 @@ public final class ActionTaskActivationSetMouseGesturesHandler extends AbstractT
             chosenGestures.add(gestures[i]);
         }
 
+        String customString = params.get("customGestures");
+        if (customString != null) {
+            JsonNode customNode = JSONUtility.jsonFromString(customString);
+            if (customNode == null || !customNode.isArrayNode()) {
+                return HttpServerUtilities.prepareHttpResponse(exchange, 400, "List of custom gesture names must be a JSON list.");
+            }
+            for (JsonNode name : customNode.getNullableArrayNode()) {
+                if (!name.isStringValue()) {
+                    return HttpServerUtilities.prepareHttpResponse(exchange, 400, "All custom gesture names must be strings.");
+                }
+                chosenGestures.add(MouseGesture.custom(name.getStringValue()));
+            }
+        }
+
         constructor.setMouseGestures(chosenGestures);
         return HttpServerUtilities.prepareHttpResponse(exchange, 200, "");
     }
@@ -3,6 +3,7 @@ package core.webui.server.handlers.internals.tasks;
 import argo.jdom.JsonNode;
 import core.keyChain.*;
 import core.userDefinedTask.UserDefinedAction;
+import core.userDefinedTask.internals.ConcurrencyPolicy;
 import core.userDefinedTask.internals.preconditions.*;
 import core.webui.server.handlers.AbstractSingleMethodHttpHandler;
 import core.webui.server.handlers.AbstractUIHttpHandler;
@@ -75,6 +76,9 @@ public final class ActionSaveTaskDetailsHandler extends AbstractUIHttpHandler {
         }
         TaskExecutionPreconditions preconditions = getTaskExecutionPreconditions(params);
         task.setExecutionPreconditions(preconditions);
+        if (params.isStringValue("concurrencyPolicy")) {
+            task.setConcurrencyPolicy(ConcurrencyPolicy.forValue(params.getStringValue("concurrencyPolicy")));
+        }
 
         taskActivationConstructorManager.remove(id);
         return HttpServerUtilities.prepareHttpResponse(exchange, 200, "");
@@ -91,6 +95,11 @@ public final class ActionSaveTaskDetailsHandler extends AbstractUIHttpHandler {
             return false;
         }
 
+        if (params.isStringValue("concurrencyPolicy") && ConcurrencyPolicy.forValue(params.getStringValue("concurrencyPolicy")) == null) {
+            HttpServerUtilities.prepareHttpResponse(exchange, 400, "Unknown concurrency policy " + params.getStringValue("concurrencyPolicy") + ".");
+            return false;
+        }
+
         if (!params.isNode("preconditions")) {
             return true;
         }
@@ -21,6 +21,7 @@ package core.webui.server.handlers.internals.tasks;
 import argo.jdom.JsonNode;
 import core.userDefinedTask.UserDefinedAction;
 import core.userDefinedTask.internals.ActionExecutionRequest;
+import core.userDefinedTask.internals.ExecutionPriority;
 import core.userDefinedTask.internals.RunActionConfig;
 import core.webui.server.handlers.AbstractPOSTHandler;
 import core.webui.webcommon.HttpServerUtilities;
@@ -47,7 +48,7 @@ public final class RunTaskHandler extends AbstractPOSTHandler {
         }
         String id = requestData.getId();
         RunActionConfig runConfig = Backend.getRunActionConfig();
-        ActionExecutionRequest executionRequest = ActionExecutionRequest.of(runConfig.getRepeatCount(), runConfig.getDelayMsBetweenRepeats());
+        ActionExecutionRequest executionRequest = ActionExecutionRequest.of(runConfig.getRepeatCount(), runConfig.getDelayMsBetweenRepeats(), ExecutionPriority.BULK);
 
         if (requestData.getRunConfig() != null) { // Custom run config is provided.
             String repeatCountString = requestData.getRunConfig().getRepeatCount();
@@ -56,12 +57,13 @@ public final class RunTaskHandler extends AbstractPOSTHandler {
             }
             int repeatCount = Integer.parseInt(repeatCountString);
 
+            // Fractions of milliseconds are allowed so that tasks can repeat more than a thousand times per second.
             String delayMsString = requestData.getRunConfig().getDelayMsBetweenRepeat();
-            if (!NumberUtility.isNonNegativeInteger(delayMsString)) {
-                throw new IllegalArgumentException("Delay in milliseconds must be a non-negative integer.");
+            if (delayMsString == null || !NumberUtility.isDouble(delayMsString) || Double.parseDouble(delayMsString) < 0) {
+                throw new IllegalArgumentException("Delay in milliseconds must be a non-negative number.");
             }
-            long delayMs = Long.parseLong(delayMsString);
-            executionRequest = ActionExecutionRequest.of(repeatCount, delayMs);
+            long delayNanos = Math.round(Double.parseDouble(delayMsString) * 1_000_000);
+            executionRequest = createRequest(requestData.getRunConfig(), repeatCount, delayNanos);
         }
 
         UserDefinedAction action = Backend.getTask(id);
@@ -71,4 +73,26 @@ public final class RunTaskHandler extends AbstractPOSTHandler {
         Backend.actionExecutor.startExecutingAction(executionRequest, action);
         return id;
     }
+
+    private static ActionExecutionRequest createRequest(RunTaskRequest.RunConfig runConfig, int repeatCount, long delayNanos) {
+        String repeatMode = runConfig.getRepeatMode();
+        if (repeatMode == null || repeatMode.equals("fixed_delay")) {
+            return ActionExecutionRequest.fixedDelay(repeatCount, delayNanos, ExecutionPriority.BULK);
+        }
+        if (!repeatMode.equals("fixed_rate")) {
+            throw new IllegalArgumentException("Unknown repeat mode " + repeatMode + ".");
+        }
+        if (delayNanos <= 0) {
+            throw new IllegalArgumentException("Delay in milliseconds must be positive when repeating at a fixed rate.");
+        }
+
+        String overrunPolicy = runConfig.getOverrunPolicy();
+        if (overrunPolicy == null || overrunPolicy.equals("catch_up")) {
+            return ActionExecutionRequest.fixedRate(repeatCount, delayNanos, ActionExecutionRequest.OverrunPolicy.CATCH_UP, ExecutionPriority.BULK);
+        }
+        if (overrunPolicy.equals("skip")) {
+            return ActionExecutionRequest.fixedRate(repeatCount, delayNanos, ActionExecutionRequest.OverrunPolicy.SKIP, ExecutionPriority.BULK);
+        }
+        throw new IllegalArgumentException("Unknown overrun policy " + overrunPolicy + ".");
+    }
 }
\ No newline at end of file
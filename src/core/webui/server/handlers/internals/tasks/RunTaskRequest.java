@@ -22,6 +22,8 @@ public final class RunTaskRequest extends AutoJsonable {
 	protected static final class RunConfig extends AutoJsonable {
 		private String repeatCount;
 		private String delayMsBetweenRepeat;
+		private String repeatMode;
+		private String overrunPolicy;
 
 		public static RunConfig of() {
 			return new RunConfig();
@@ -41,5 +43,13 @@ public final class RunTaskRequest extends AutoJsonable {
 		String getDelayMsBetweenRepeat() {
 			return delayMsBetweenRepeat;
 		}
+
+		String getRepeatMode() {
+			return repeatMode;
+		}
+
+		String getOverrunPolicy() {
+			return overrunPolicy;
+		}
 	}
 }
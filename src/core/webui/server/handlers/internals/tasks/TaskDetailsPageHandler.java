@@ -17,6 +17,7 @@ import org.apache.http.nio.protocol.HttpAsyncExchange;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeSet;
 
 public final class TaskDetailsPageHandler extends AbstractUIHttpHandler {
 
@@ -99,6 +100,10 @@ public final class TaskDetailsPageHandler extends AbstractUIHttpHandler {
         Map<String, Object> data = new HashMap<>();
         data.put("task", renderedDetailedUserDefinedAction);
         data.put("taskActivationConstructorId", activationConstructorId);
+        // Gestures chosen for the task are listed even if their templates have been removed since.
+        TreeSet<String> customGestures = new TreeSet<>(Backend.config.getCustomGestures().getGestureNames());
+        customGestures.addAll(renderedDetailedUserDefinedAction.getActivation().getMouseGestures().getCustom());
+        data.put("customGestures", customGestures);
         return renderedPage(exchange, "task_details", data);
     }
 
@@ -0,0 +1,49 @@
+package core.webui.server.handlers.renderedobjects;
+
+import core.userDefinedTask.internals.ConcurrencyPolicy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class RenderedConcurrencyPolicy {
+    private String value;
+    private String displayName;
+    private boolean selected;
+
+    public static List<RenderedConcurrencyPolicy> of(ConcurrencyPolicy selected) {
+        return Arrays.stream(ConcurrencyPolicy.values()).map(p -> of(p, p == selected)).collect(Collectors.toList());
+    }
+
+    private static RenderedConcurrencyPolicy of(ConcurrencyPolicy policy, boolean selected) {
+        RenderedConcurrencyPolicy output = new RenderedConcurrencyPolicy();
+        output.value = policy.getValue();
+        output.displayName = policy.getDisplayName();
+        output.selected = selected;
+        return output;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public boolean isSelected() {
+        return selected;
+    }
+
+    public void setSelected(boolean selected) {
+        this.selected = selected;
+    }
+}
@@ -3,10 +3,13 @@ package core.webui.server.handlers.renderedobjects;
 import core.keyChain.TaskActivationConstructor;
 import core.userDefinedTask.UserDefinedAction;
 
+import java.util.List;
+
 public final class RenderedDetailedUserDefinedAction {
 	private String id;
 	private String name;
 	private String isEnabled;
+	private List<RenderedConcurrencyPolicy> concurrencyPolicies;
 	private String hasPreconditions;
 	private RenderedTaskExecutionPreconditions preconditions;
 	private RenderedTaskActivation activation;
@@ -52,6 +55,7 @@ public final class RenderedDetailedUserDefinedAction {
 		result.id = action.getActionId();
 		result.name = action.getName();
 		result.isEnabled = action.isEnabled() + "";
+		result.concurrencyPolicies = RenderedConcurrencyPolicy.of(action.getConcurrencyPolicy());
 		result.hasPreconditions = true + "";
 		result.preconditions = RenderedTaskExecutionPreconditions.of(action.getExecutionPreconditions());
 		result.activation = RenderedTaskActivation.fromActivation(activationConstructor);
@@ -110,6 +114,12 @@ public final class RenderedDetailedUserDefinedAction {
 	public RenderedTaskSourceHistory getSourceHistory() {
 		return sourceHistory;
 	}
+	public List<RenderedConcurrencyPolicy> getConcurrencyPolicies() {
+		return concurrencyPolicies;
+	}
+	public void setConcurrencyPolicies(List<RenderedConcurrencyPolicy> concurrencyPolicies) {
+		this.concurrencyPolicies = concurrencyPolicies;
+	}
 	public String getIsEnabled() {
 		return isEnabled;
 	}
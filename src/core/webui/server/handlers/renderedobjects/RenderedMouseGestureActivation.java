@@ -3,6 +3,7 @@ package core.webui.server.handlers.renderedobjects;
 import core.keyChain.ActionInvoker;
 import core.keyChain.MouseGesture;
 
+import java.util.List;
 import java.util.Set;
 
 public final class RenderedMouseGestureActivation {
@@ -21,6 +22,7 @@ public final class RenderedMouseGestureActivation {
     private boolean tilda;
     private boolean triangle;
     private boolean z;
+    private List<String> custom;
 
     public static RenderedMouseGestureActivation fromActivation(ActionInvoker activation) {
         Set<MouseGesture> gestures = activation.getMouseGestures();
@@ -37,6 +39,7 @@ public final class RenderedMouseGestureActivation {
         output.tilda = gestures.contains(MouseGesture.TILDA);
         output.triangle = gestures.contains(MouseGesture.TRIANGLE);
         output.z = gestures.contains(MouseGesture.Z);
+        output.custom = gestures.stream().filter(MouseGesture::isCustom).map(MouseGesture::getName).sorted().toList();
         return output;
     }
 
@@ -135,4 +138,12 @@ public final class RenderedMouseGestureActivation {
     public void setZ(boolean z) {
         this.z = z;
     }
+
+    public List<String> getCustom() {
+        return custom;
+    }
+
+    public void setCustom(List<String> custom) {
+        this.custom = custom;
+    }
 }
@@ -19,6 +19,7 @@
 package frontEnd;
 
 import core.config.Config;
+import core.controller.CancellationToken;
 import core.controller.Core;
 import core.ipc.IPCServiceManager;
 import core.ipc.repeatServer.processors.TaskProcessorManager;
@@ -48,6 +49,7 @@ import java.awt.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.*;
 
 import static core.userDefinedTask.TaskGroupManager.*;
@@ -55,11 +57,12 @@ import static core.userDefinedTask.TaskGroupManager.*;
 @SuppressWarnings("DanglingJavadoc")
 public final class Backend {
     public static final Config config = Config.loadFromFile();
-    public static final ActionExecutor actionExecutor = new ActionExecutor(Core.local(config));
+    public static final ActionExecutor actionExecutor = new ActionExecutor(Core.local(config), config.getInteractiveExecutionLimits(), config.getBulkExecutionLimits());
     public static final GlobalEventsManager keysManager = new GlobalEventsManager(config, actionExecutor);
     public static final Recorder recorder = new Recorder(Core.local(config));
     private static final LogHolder logHolder = new LogHolder();
     private static final Logger LOGGER = Logger.getLogger(Backend.class.getName());
+    private static final long HALT_TIMEOUT_MS = 500;
     public static ReplayConfig replayConfig;
     private static Language compilingLanguage;
     private static RunActionConfig runActionConfig;
@@ -69,6 +72,7 @@ public final class Backend {
     private static File currentTempFile;
     private static MinimizedFrame trayIcon;
     private static Thread compiledExecutor;
+    private static CancellationToken compiledExecutorToken;
     private static UserDefinedAction customFunction;
     private static final UserDefinedAction switchReplayCompiled = UserDefinedAction.of(Backend::switchRunningCompiledAction);
 
@@ -152,6 +156,7 @@ public final class Backend {
             public void run() {
                 actionExecutor.haltAllTasks();
                 GlobalListenerHookController.cleanup();
+                keysManager.stopGlobalListener();
                 Backend.writeConfigFile();
                 if (trayIcon != null) trayIcon.remove();
                 cleanupTimer.schedule(new TimerTask() {
@@ -275,64 +280,121 @@ public final class Backend {
         if (isRunningCompiledTask) {
             return;
         }
-        switchRunningCompiledAction();
+        startCompiledAction();
     }
 
-    public static synchronized void stopRunningCompiledAction() {
-        if (!isRunningCompiledTask) {
-            return;
-        }
-        switchRunningCompiledAction();
+    public static void stopRunningCompiledAction() {
+        awaitCompiledActionStopped(cancelCompiledAction());
     }
 
-    private static synchronized void switchRunningCompiledAction() {
-        if (isRunningCompiledTask) {
-            isRunningCompiledTask = false;
-            if (compiledExecutor != null) {
-                if (compiledExecutor != Thread.currentThread()) {
-                    while (compiledExecutor.isAlive()) {
-                        compiledExecutor.interrupt();
-                    }
-                }
+    private static void switchRunningCompiledAction() {
+        Thread stopped;
+        synchronized (Backend.class) {
+            if (!isRunningCompiledTask) {
+                startCompiledAction();
+                return;
             }
-        } else {
-            if (customFunction == null) {
-                LOGGER.warning("No compiled action in memory");
+            stopped = cancelCompiledAction();
+        }
+        awaitCompiledActionStopped(stopped);
+    }
+
+    private static synchronized void startCompiledAction() {
+        if (customFunction == null) {
+            LOGGER.warning("No compiled action in memory");
+            return;
+        }
+
+        isRunningCompiledTask = true;
+
+        CancellationToken token = new CancellationToken();
+        compiledExecutorToken = token;
+        compiledExecutor = new Thread(() -> {
+            token.bind();
+            try {
+                customFunction.action(Core.local(config));
+            } catch (InterruptedException e) { // Stopped prematurely
                 return;
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Exception caught while executing custom function", e);
             }
 
-            isRunningCompiledTask = true;
+            compiledActionEnded();
+        });
+        compiledExecutor.start();
+    }
 
-            compiledExecutor = new Thread(() -> {
-                try {
-                    customFunction.action(Core.local(config));
-                } catch (InterruptedException e) { // Stopped prematurely
-                    return;
-                } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Exception caught while executing custom function", e);
-                }
+    /**
+     * Cancel the running compiled action. The thread is only signalled here, so that the caller can wait for it
+     * without holding the lock the thread needs to finish.
+     *
+     * @return the thread to wait for, or null if there is none.
+     */
+    private static synchronized Thread cancelCompiledAction() {
+        if (!isRunningCompiledTask) {
+            return null;
+        }
+        isRunningCompiledTask = false;
+        Thread executor = compiledExecutor;
+        compiledExecutor = null;
+        if (executor == null || executor == Thread.currentThread()) {
+            return null;
+        }
+        compiledExecutorToken.cancel();
+        executor.interrupt();
+        return executor;
+    }
+
+    private static void awaitCompiledActionStopped(Thread executor) {
+        if (executor == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HALT_TIMEOUT_MS);
+        if (!CancellationToken.join(executor, deadline)) {
+            LOGGER.warning("Abandoning compiled action thread which did not end within " + HALT_TIMEOUT_MS + "ms.");
+        }
+    }
 
-                switchRunningCompiledAction();
-            });
-            compiledExecutor.start();
+    /**
+     * Called by the compiled action thread when the action returns by itself.
+     */
+    private static synchronized void compiledActionEnded() {
+        // The action may have been stopped and started again in the meantime, in which case this is no longer the
+        // running one.
+        if (compiledExecutor == Thread.currentThread()) {
+            isRunningCompiledTask = false;
+            compiledExecutor = null;
         }
     }
 
     /*****************************************Task group related**************************************************/
     static void renderTaskGroup() {
         TaskGroupManager.ensureHasAGroup();
+        Set<UserDefinedAction> registered = keysManager.getRegisteredTasks();
+        List<UserDefinedAction> tasks = new ArrayList<>();
         for (TaskGroup group : taskGroups) {
             if (!group.isEnabled()) {
                 continue;
             }
 
             for (UserDefinedAction task : group.getTasks()) {
-                Set<UserDefinedAction> collisions = keysManager.isTaskRegistered(task);
-                if (task.isEnabled() && (collisions.isEmpty())) {
-                    keysManager.registerTask(task);
+                if (task.isEnabled() && !registered.contains(task)) {
+                    tasks.add(task);
                 }
             }
         }
+
+        if (tasks.isEmpty() || keysManager.registerAll(tasks).isEmpty()) {
+            return;
+        }
+
+        // Some tasks collide. Register them one by one so that the first of the colliding tasks wins.
+        for (UserDefinedAction task : tasks) {
+            Set<UserDefinedAction> collisions = keysManager.isTaskRegistered(task);
+            if (collisions.isEmpty()) {
+                keysManager.registerTask(task);
+            }
+        }
     }
 
     /*************************************************************************************************************/
@@ -506,9 +568,7 @@ public final class Backend {
             setCurrentTaskGroup(taskGroups.getFirst());
         }
 
-        for (UserDefinedAction action : removed.getTasks()) {
-            keysManager.unregisterTask(action);
-        }
+        keysManager.unregisterAll(removed.getTasks());
         renderTaskGroup();
     }
 
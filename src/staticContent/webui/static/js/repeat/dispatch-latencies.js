@@ -0,0 +1,47 @@
+function registerDispatchLatenciesHandler() {
+    refreshDispatchLatencies({ backOff: 1000 });
+}
+
+function toMicros(nanos) {
+    return (nanos / 1000).toFixed(1);
+}
+
+function refreshDispatchLatencies(state) {
+    var scheduleNext = function(state) {
+        setTimeout(function() {
+            refreshDispatchLatencies(state);
+        }, state.backOff);
+    }
+
+    $.get("/internals/get/dispatch-latencies", function(data) {
+        state.backOff = 1000;
+        var latencies = JSON.parse(data);
+
+        $("#dispatch-queue").text("Queue: " + latencies.queueDepth + "/" + latencies.queueCapacity + " events waiting, " + latencies.dropped + " dropped.");
+        var executions = $("#execution-queue");
+        executions.empty();
+        latencies.executionLanes.forEach(function(lane) {
+            executions.append($("<div>").text(lane.name + " tasks: " + lane.running + "/" + lane.maxRunning + " running, "
+                + lane.pending + "/" + lane.maxPending + " waiting, " + lane.rejected + " discarded, "
+                + lane.skipped + " skipped by task policy, " + lane.abandoned + " abandoned."));
+        });
+
+        var body = $("#table-dispatch-latencies tbody");
+        body.empty();
+        latencies.stages.forEach(function(stage) {
+            var row = $("<tr>");
+            row.append($("<td>").text(stage.name));
+            row.append($("<td>").text(stage.count));
+            row.append($("<td>").text(toMicros(stage.meanNanos)));
+            row.append($("<td>").text(toMicros(stage.p50Nanos)));
+            row.append($("<td>").text(toMicros(stage.p99Nanos)));
+            row.append($("<td>").text(toMicros(stage.p999Nanos)));
+            row.append($("<td>").text(toMicros(stage.maxNanos)));
+            body.append(row);
+        });
+    }).fail(function(response) {
+        state.backOff = Math.min(3600000, Math.floor(state.backOff * 2));
+    }).always(function() {
+        scheduleNext(state);
+    });
+}
@@ -9,6 +9,7 @@ function registerMenuIndexPageActions() {
     $("#menu-halt-all-tasks").click(menuHaltAllTasksAction);
     $("#menu-generate-source").click(menuGenerateSourceAction);
     $("#menu-compiling-languages").click(menuCompilingLanguagesAction);
+    $("#menu-gesture-training").click(menuGestureTrainingAction);
 
     $("#menu-hotkeys").click(menuHotkeysAction);
     $("#menu-compiler-path").click(menuSetCompilerPathAction);
@@ -29,6 +30,10 @@ function registerMenuIndexPageActions() {
     $("#modal-set-compiler-path-save").click(setCompilerPathAction);
     $("#modal-configure-compiler-save").click(setCompilerConfigurationAction);
     $("#modal-debug-level-save").click(setDebugLevelAction);
+    $("#modal-gesture-training-record").click(recordGestureTrainingSampleAction);
+    $("#modal-gesture-training-train").click(trainGestureModelAction);
+    $("#modal-gesture-training-clear").click(clearGestureTrainingSamplesAction);
+    $("#modal-gesture-training-reset").click(resetGestureModelAction);
 
     utils_SuggestPaths("new-compiler-path");
     utils_SuggestPaths("import-tasks-file");
@@ -255,6 +260,53 @@ function setDebugLevelAction(e) {
     });
 }
 
+function menuGestureTrainingAction(e) {
+    $.get("/internals/get/gesture-training-samples", function(data) {
+        var select = $("#modal-gesture-training-label");
+        select.empty();
+        JSON.parse(data).forEach(function(gesture) {
+            select.append($("<option>").val(gesture.label).text(gesture.label + " (" + gesture.samples + " samples)"));
+        });
+        $("#modal-gesture-training").modal();
+    }).fail(function(response) {
+        alert('Error getting gesture training samples: ' + response.responseText);
+    });
+}
+
+function recordGestureTrainingSampleAction(e) {
+    var label = $("#modal-gesture-training-label").val();
+
+    $.post("/internals/action/gesture-training/record-sample", JSON.stringify({ label: label }), function(data) {
+        alert(data);
+    }).fail(function(response) {
+        alert('Error recording gesture training sample: ' + response.responseText);
+    });
+}
+
+function trainGestureModelAction(e) {
+    $.post("/internals/action/gesture-training/train", function(data) {
+        alert(data);
+    }).fail(function(response) {
+        alert('Error training gesture model: ' + response.responseText);
+    });
+}
+
+function clearGestureTrainingSamplesAction(e) {
+    $.post("/internals/action/gesture-training/clear-samples", function(data) {
+        // Nothing to do.
+    }).fail(function(response) {
+        alert('Error clearing gesture training samples: ' + response.responseText);
+    });
+}
+
+function resetGestureModelAction(e) {
+    $.post("/internals/action/gesture-training/reset-model", function(data) {
+        alert(data);
+    }).fail(function(response) {
+        alert('Error resetting gesture model: ' + response.responseText);
+    });
+}
+
 function menuUseTrayIconAction(e) {
     menuSetBooleanSettingAction("menu-use-tray-icon", "/internals/menu/settings/use-tray-icon");
 }
@@ -10,9 +10,12 @@ function registerTaskActivationActions() {
     $("#button-add-key-sequence").click(buttonAddKeySequenceAction);
     $("#button-add-phrase").click(buttonAddPhraseAction);
     $("#button-add-shared-variables").click(buttonAddSharedVariables);
+    $("#button-custom-gestures").click(buttonCustomGesturesAction);
 
     $("#modal-phrase-save").click(buttonModalAddPhraseAction);
     $("#modal-shared-variables-save").click(buttonModalAddSharedVariablesAction);
+    $("#modal-custom-gesture-record").click(buttonModalCustomGestureAction("/internals/action/custom-gestures/record"));
+    $("#modal-custom-gesture-remove").click(buttonModalCustomGestureAction("/internals/action/custom-gestures/remove"));
     registerRemoveKeyChainAction();
     registerRemoveKeySequenceAction();
     registerRemovePhraseAction();
@@ -75,12 +78,19 @@ function buttonSaveAction(e) {
 
     var postData = getTaskActivationParameters();
     selectedGestures = [];
+    selectedCustomGestures = [];
     $("#mouse-gestures-selection").find("option").each(function(index) {
         if ($(this).is(':selected')) {
-            selectedGestures.push(index);
+            var customName = $(this).attr("data-custom-name");
+            if (customName === undefined) {
+                selectedGestures.push(index);
+            } else {
+                selectedCustomGestures.push(customName);
+            }
         }
     });
     postData.gestures = JSON.stringify(selectedGestures);
+    postData.customGestures = JSON.stringify(selectedCustomGestures);
 
     $.post("/internals/action/task-activation/mouse-gestures/set", JSON.stringify(postData), function(data) {
         save();
@@ -219,6 +229,23 @@ function buttonModalAddPhraseAction(e) {
     });
 }
 
+function buttonCustomGesturesAction(e) {
+    $("#new-custom-gesture").val("");
+    $("#modal-custom-gesture").modal();
+}
+
+function buttonModalCustomGestureAction(endpoint) {
+    return function(e) {
+        var postData = { name: $("#new-custom-gesture").val() };
+
+        $.post(endpoint, JSON.stringify(postData), function(data) {
+            alert(data);
+        }).fail(function(response) {
+            alert('Error with custom gesture: ' + response.responseText);
+        });
+    };
+}
+
 function buttonAddSharedVariables(e) {
     $("#new-variable-namespace").val("");
     $("#new-variable-name").val("");
@@ -277,5 +304,8 @@ function getTaskDetailsParameters() {
             "activeProcessName": document.getElementById("precondition-active-process-name").value,
         }
     }
+    if (document.getElementById("task-concurrency-policy") != null) {
+        result.concurrencyPolicy = document.getElementById("task-concurrency-policy").value;
+    }
     return result;
 }
@@ -20,11 +20,23 @@ package staticResources;
 
 import utilities.NumberUtility;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Handle the loading and parsing of mouse gesture recognition model.
+ * <p>
+ * The application reads the compact binary model from {@link #getModel()}. The text resources, one IEEE 754 binary
+ * string per line, are the source the binary model is converted from.
  */
 public final class MouseGestureModelResources {
 
@@ -33,6 +45,42 @@ public final class MouseGestureModelResources {
     private static final String INTERCEPTS_FILE = "/staticContent/mouseGestureModel/intercepts";
     private static final String COEFFICIENTS_FILE = "/staticContent/mouseGestureModel/coefficients";
     private static final String LABELS_FILE = "/staticContent/mouseGestureModel/labels";
+    private static final String MODEL_FILE = "/staticContent/mouseGestureModel/model.bin";
+
+    private MouseGestureModelResources() {
+        throw new InstantiationError("This class is uninstantiable.");
+    }
+
+    /**
+     * Open the binary model. The file is memory mapped when the resource is a plain file, and read into memory
+     * otherwise (e.g. when running from a jar).
+     *
+     * @return read only little endian buffer over the model, or null if it cannot be read.
+     */
+    public static ByteBuffer getModel() {
+        URL url = MouseGestureModelResources.class.getResource(MODEL_FILE);
+        if (url == null) {
+            LOGGER.warning("Mouse gesture model " + MODEL_FILE + " not found.");
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer;
+            if ("file".equals(url.getProtocol())) {
+                try (FileChannel channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } else {
+                try (InputStream stream = url.openStream()) {
+                    buffer = ByteBuffer.wrap(stream.readAllBytes()).asReadOnlyBuffer();
+                }
+            }
+            return buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | URISyntaxException e) {
+            LOGGER.log(Level.WARNING, "Unable to read mouse gesture model.", e);
+            return null;
+        }
+    }
 
     /**
      * Load the intercepts from file. Each line is an intercept in IEEE 754 single precision form.
@@ -10,11 +10,40 @@ public final class KeyCodeToChar {
         throw new InstantiationError("This class is uninstantiable.");
     }
 
+    /**
+     * Key codes below this value may type a character. This covers every key code mapped below.
+     */
+    private static final int TABLE_SIZE = 1024;
+    // Character typed by each key code in each keyboard state, indexed by [KeyboardState#getBits()][code].
+    private static final String[][] TABLE = buildTable();
+
     public static boolean hasCharForCode(int code, KeyboardState state) {
-        return !getCharForCode(code, state).isBlank();
+        return !getCharForCode(code, state).isEmpty();
     }
 
+    /**
+     * @return the character typed by the key in the keyboard state, or empty string if the key does not type a
+     * character. This is a table lookup and does not allocate.
+     */
     public static String getCharForCode(int code, KeyboardState state) {
+        if (code < 0 || code >= TABLE_SIZE) {
+            return "";
+        }
+        return TABLE[state.getBits()][code];
+    }
+
+    private static String[][] buildTable() {
+        String[][] table = new String[KeyboardState.COUNT][TABLE_SIZE];
+        for (int bits = 0; bits < KeyboardState.COUNT; bits++) {
+            KeyboardState state = KeyboardState.of(bits);
+            for (int code = 0; code < TABLE_SIZE; code++) {
+                table[bits][code] = computeCharForCode(code, state);
+            }
+        }
+        return table;
+    }
+
+    private static String computeCharForCode(int code, KeyboardState state) {
         String nonAlphaChar = getNonAlphaChar(code, state);
         String alphaChar = getAlphaChar(code, state);
         String numpadChar = getCharFromNumpadCode(code, state);